@@ -2,6 +2,8 @@ package com.lura.data.db
 
 import androidx.room.Database
 import androidx.room.RoomDatabase
+import androidx.room.migration.Migration
+import androidx.sqlite.db.SupportSQLiteDatabase
 import com.lura.data.db.dao.HighlightDao
 import com.lura.data.db.dao.BookDao
 import com.lura.data.db.dao.FolderDao
@@ -11,11 +13,21 @@ import com.lura.data.db.entity.FolderEntity
 
 @Database(
     entities = [BookEntity::class, Highlight::class, FolderEntity::class], 
-    version = 4, 
+    version = 5, 
     exportSchema = false
 )
 abstract class AppDatabase : RoomDatabase() {
     abstract fun bookDao(): BookDao
     abstract fun highlightDao(): HighlightDao
     abstract fun folderDao(): FolderDao
+
+    companion object {
+        /** Adds the element and character parts of the reading position locator. */
+        val MIGRATION_4_5 = object : Migration(4, 5) {
+            override fun migrate(db: SupportSQLiteDatabase) {
+                db.execSQL("ALTER TABLE books ADD COLUMN currentElement INTEGER NOT NULL DEFAULT 0")
+                db.execSQL("ALTER TABLE books ADD COLUMN currentCharOffset INTEGER NOT NULL DEFAULT 0")
+            }
+        }
+    }
 }
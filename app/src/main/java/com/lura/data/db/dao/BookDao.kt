@@ -18,8 +18,8 @@ interface BookDao {
     @Insert(onConflict = OnConflictStrategy.REPLACE)
     suspend fun insertBook(book: BookEntity)
 
-    @Query("UPDATE books SET progress = :progress, progressPercentage = :progress WHERE id = :id")
-    suspend fun updateProgress(id: String, progress: Float)
+    @Query("UPDATE books SET progress = :progress, progressPercentage = :progress, currentChapter = :chapter, currentElement = :element, currentCharOffset = :charOffset WHERE id = :id")
+    suspend fun updateProgress(id: String, progress: Float, chapter: Int, element: Int, charOffset: Int)
 
     @androidx.room.Delete
     suspend fun deleteBook(book: BookEntity)
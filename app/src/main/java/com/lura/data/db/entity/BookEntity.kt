@@ -1,5 +1,6 @@
 package com.lura.data.db.entity
 
+import androidx.room.ColumnInfo
 import androidx.room.Entity
 import androidx.room.PrimaryKey
 
@@ -26,6 +27,8 @@ data class BookEntity(
     val currentPage: Int = 0,
     val totalPages: Int = 0,
     val currentChapter: Int = 0,
+    @ColumnInfo(defaultValue = "0") val currentElement: Int = 0,
+    @ColumnInfo(defaultValue = "0") val currentCharOffset: Int = 0,
     val progressPercentage: Float = 0f,
     val lastReadTimestamp: Long = 0,
     val lastReadDate: Long = 0,
@@ -0,0 +1,148 @@
+package com.lura.data.engine
+
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.content.res.Configuration
+import android.graphics.Bitmap
+import android.graphics.BitmapFactory
+import android.util.LruCache
+import com.lura.domain.repository.LibraryRepository
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Decodes in-book images for the reader and keeps the results in memory.
+ *
+ * Images are decoded no larger than needed for the space they are shown in, using the smallest
+ * power-of-two subsampling that still covers the target size, so a large illustration does not
+ * occupy a full-resolution bitmap on a phone screen. Decoded bitmaps are kept in an LRU bounded by
+ * their byte size, so paging back and forth does not inflate and decode the same image again.
+ */
+@Singleton
+class BookImageLoader @Inject constructor(
+    @ApplicationContext context: Context,
+    private val repository: LibraryRepository
+) : ComponentCallbacks2 {
+
+    private data class Key(
+        val bookId: String,
+        val imagePath: String,
+        val targetWidth: Int,
+        val targetHeight: Int
+    )
+
+    private val cache = object : LruCache<Key, Bitmap>(DEFAULT_CACHE_BYTES) {
+        override fun sizeOf(key: Key, value: Bitmap): Int = value.allocationByteCount
+    }
+
+    init {
+        context.registerComponentCallbacks(this)
+    }
+
+    /**
+     * Returns the cached bitmap for this image at this target size, without decoding.
+     */
+    fun getCached(bookId: String, imagePath: String, targetWidth: Int, targetHeight: Int): Bitmap? {
+        return cache.get(Key(bookId, imagePath, targetWidth, targetHeight))
+    }
+
+    /**
+     * Loads [imagePath] from the book, downsampled to roughly fit [targetWidth] x [targetHeight]
+     * pixels. Returns null if the image is missing or cannot be decoded.
+     */
+    suspend fun load(bookId: String, imagePath: String, targetWidth: Int, targetHeight: Int): Bitmap? {
+        val key = Key(bookId, imagePath, targetWidth, targetHeight)
+        cache.get(key)?.let { return it }
+
+        val bytes = repository.getBookImage(bookId, imagePath) ?: return null
+        val bitmap = withContext(Dispatchers.Default) {
+            decodeSampled(bytes, targetWidth, targetHeight)
+        } ?: return null
+
+        cache.put(key, bitmap)
+        return bitmap
+    }
+
+    /**
+     * Decodes an image ahead of it being shown. Unlike [load], this only uses room the cache has
+     * left over: an image that would push out others (likely the ones on screen) is skipped.
+     */
+    suspend fun prefetch(bookId: String, imagePath: String, targetWidth: Int, targetHeight: Int) {
+        val key = Key(bookId, imagePath, targetWidth, targetHeight)
+        if (cache.get(key) != null) return
+
+        val bytes = repository.getBookImage(bookId, imagePath) ?: return
+        val bitmap = withContext(Dispatchers.Default) {
+            decodeSampled(bytes, targetWidth, targetHeight, maxBytes = cache.maxSize() - cache.size())
+        } ?: return
+
+        cache.put(key, bitmap)
+    }
+
+    private fun decodeSampled(
+        bytes: ByteArray,
+        targetWidth: Int,
+        targetHeight: Int,
+        maxBytes: Int = Int.MAX_VALUE
+    ): Bitmap? {
+        return try {
+            val bounds = BitmapFactory.Options().apply { inJustDecodeBounds = true }
+            BitmapFactory.decodeByteArray(bytes, 0, bytes.size, bounds)
+
+            val sampleSize = calculateInSampleSize(bounds.outWidth, bounds.outHeight, targetWidth, targetHeight)
+            val estimatedBytes = (bounds.outWidth / sampleSize).toLong() * (bounds.outHeight / sampleSize) * BYTES_PER_PIXEL
+            if (estimatedBytes > maxBytes) return null
+
+            val options = BitmapFactory.Options().apply { inSampleSize = sampleSize }
+            BitmapFactory.decodeByteArray(bytes, 0, bytes.size, options)
+        } catch (e: OutOfMemoryError) {
+            android.util.Log.e(TAG, "Out of memory decoding image", e)
+            cache.evictAll()
+            null
+        }
+    }
+
+    override fun onTrimMemory(level: Int) {
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+            cache.evictAll()
+        } else if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) {
+            cache.trimToSize(cache.maxSize() / 2)
+        }
+    }
+
+    override fun onLowMemory() {
+        cache.evictAll()
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) {}
+
+    companion object {
+        private const val TAG = "BookImageLoader"
+
+        private const val BYTES_PER_PIXEL = 4 // ARGB_8888, BitmapFactory's default
+
+        /** An eighth of the heap, the usual share for an in-memory bitmap cache. */
+        val DEFAULT_CACHE_BYTES = (Runtime.getRuntime().maxMemory() / 8).coerceAtMost(Int.MAX_VALUE.toLong()).toInt()
+
+        /**
+         * Largest power of two that still leaves the decoded image at least as large as it is
+         * drawn when scaled to fit [targetWidth] x [targetHeight]. A non-positive target leaves
+         * that dimension unconstrained.
+         */
+        fun calculateInSampleSize(width: Int, height: Int, targetWidth: Int, targetHeight: Int): Int {
+            if (width <= 0 || height <= 0) return 1
+            val reqWidth = if (targetWidth > 0) targetWidth else width
+            val reqHeight = if (targetHeight > 0) targetHeight else height
+
+            var sampleSize = 1
+            // Fit scales by the tighter dimension, so only one of them has to stay above its target
+            while (width / (sampleSize * 2) >= reqWidth || height / (sampleSize * 2) >= reqHeight) {
+                sampleSize *= 2
+            }
+            return sampleSize
+        }
+    }
+}
@@ -0,0 +1,65 @@
+package com.lura.data.engine
+
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.content.res.Configuration
+import com.lura.domain.engine.BookContent
+import com.lura.domain.engine.ChapterSource
+import com.lura.domain.engine.EpubParser
+import com.lura.domain.engine.LruChapterSource
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import javax.inject.Inject
+
+/**
+ * [EpubParser] that serves books from the [CompiledBookStore] and only falls back to
+ * [RealEpubParser] when there is no up-to-date compiled copy yet (first import, EPUB replaced,
+ * or parser upgraded). Freshly parsed books are compiled right away.
+ *
+ * Chapters are loaded lazily from the compiled file and kept in a small [LruChapterSource],
+ * which is trimmed when the system reports memory pressure.
+ */
+class CachingEpubParser @Inject constructor(
+    @ApplicationContext private val context: Context,
+    private val parser: RealEpubParser,
+    private val store: CompiledBookStore
+) : EpubParser {
+
+    override suspend fun parseBook(filePath: String): BookContent = withContext(Dispatchers.IO) {
+        val content = store.open(filePath) ?: run {
+            val parsed = parser.parseBook(filePath)
+            // Reopen from disk so the freshly parsed chapters can be released
+            if (store.write(filePath, parsed)) store.open(filePath) ?: parsed else parsed
+        }
+
+        content.copy(chapters = MemoryAwareChapterSource(context, LruChapterSource(content.chapters)))
+    }
+
+    private class MemoryAwareChapterSource(
+        private val context: Context,
+        private val delegate: ChapterSource
+    ) : ChapterSource by delegate, ComponentCallbacks2 {
+
+        init {
+            context.registerComponentCallbacks(this)
+        }
+
+        override fun onTrimMemory(level: Int) {
+            if (level >= ComponentCallbacks2.TRIM_MEMORY_RUNNING_LOW) {
+                delegate.trimMemory()
+            }
+        }
+
+        override fun onLowMemory() {
+            delegate.trimMemory()
+        }
+
+        override fun onConfigurationChanged(newConfig: Configuration) {}
+
+        override fun close() {
+            context.unregisterComponentCallbacks(this)
+            delegate.close()
+        }
+    }
+}
@@ -0,0 +1,320 @@
+package com.lura.data.engine
+
+import android.content.Context
+import com.lura.domain.engine.BookContent
+import com.lura.domain.engine.Chapter
+import com.lura.domain.engine.ChapterSource
+import com.lura.domain.engine.ReaderElement
+import com.lura.domain.engine.ReaderTextStyle
+import com.lura.domain.engine.TableCell
+import com.lura.domain.engine.TableRow
+import com.lura.domain.engine.TextSpan
+import com.lura.domain.engine.indices
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.withContext
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.ByteArrayInputStream
+import java.io.ByteArrayOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import java.io.RandomAccessFile
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * On-disk cache of parsed books.
+ *
+ * A compiled book is the [BookContent] produced by [RealEpubParser], written once in a compact
+ * binary form next to the app's other book data. Reopening a book reads this file instead of
+ * unzipping and re-parsing the EPUB. Each file records the parser version and the size and
+ * modification time of the EPUB it was compiled from, so it is ignored as soon as either changes.
+ * The chapter index lets a single chapter be decoded without touching the rest of the file.
+ *
+ * Layout (all numbers big-endian, strings are a length-prefixed UTF-8 blob):
+ * ```
+ * header   magic, formatVersion, parserVersion, sourceLength, sourceLastModified,
+ *          title, author, chapterCount, chapterTitle * chapterCount
+ * index    (offset: Long, length: Int) * chapterCount   -- absolute file positions
+ * data     chapter blobs (elementCount, element * elementCount)
+ * ```
+ */
+@Singleton
+class CompiledBookStore @Inject constructor(
+    @ApplicationContext private val context: Context
+) {
+
+    /**
+     * Opens the compiled content for [sourcePath], or returns null if there is none or it is
+     * stale. Only the header and chapter index are read here, chapter bodies are decoded on
+     * demand by the returned [ChapterSource].
+     */
+    fun open(sourcePath: String): BookContent? {
+        val source = File(sourcePath)
+        val compiled = compiledFileFor(source)
+        if (!compiled.exists()) return null
+
+        return try {
+            DataInputStream(BufferedInputStream(FileInputStream(compiled))).use { input ->
+                val header = readHeader(input)
+                if (!header.matches(source)) {
+                    android.util.Log.d(TAG, "Compiled book is stale, ignoring: ${compiled.name}")
+                    compiled.delete()
+                    return null
+                }
+
+                val count = header.chapterTitles.size
+                val offsets = LongArray(count)
+                val lengths = IntArray(count)
+                for (i in 0 until count) {
+                    offsets[i] = input.readLong()
+                    lengths[i] = input.readInt()
+                }
+
+                BookContent(
+                    title = header.title,
+                    author = header.author,
+                    chapters = CompiledChapterSource(compiled, header.chapterTitles, offsets, lengths)
+                )
+            }
+        } catch (e: Exception) {
+            android.util.Log.e(TAG, "Failed to read compiled book, discarding", e)
+            compiled.delete()
+            null
+        }
+    }
+
+    /**
+     * Compiles [content] for [sourcePath]. Returns false on failure, which is otherwise only
+     * logged: the book will simply be parsed again next time.
+     */
+    suspend fun write(sourcePath: String, content: BookContent): Boolean {
+        val source = File(sourcePath)
+        val compiled = compiledFileFor(source)
+        val tmp = File(compiled.parentFile, compiled.name + ".tmp")
+
+        try {
+            // Encode chapters first so the index can be written up front
+            val blobs = content.chapters.indices.map { index ->
+                val bytes = ByteArrayOutputStream()
+                DataOutputStream(bytes).use { writeElements(it, content.chapters.load(index).elements) }
+                bytes.toByteArray()
+            }
+
+            val headerBytes = ByteArrayOutputStream()
+            DataOutputStream(headerBytes).use { out ->
+                out.writeInt(MAGIC)
+                out.writeInt(FORMAT_VERSION)
+                out.writeInt(RealEpubParser.PARSER_VERSION)
+                out.writeLong(source.length())
+                out.writeLong(source.lastModified())
+                writeString(out, content.title)
+                writeString(out, content.author)
+                out.writeInt(content.chapters.size)
+                content.chapters.indices.forEach { writeString(out, content.chapters.titleAt(it)) }
+            }
+
+            DataOutputStream(BufferedOutputStream(FileOutputStream(tmp))).use { out ->
+                out.write(headerBytes.toByteArray())
+
+                var offset = headerBytes.size().toLong() + blobs.size * INDEX_ENTRY_SIZE
+                blobs.forEach { blob ->
+                    out.writeLong(offset)
+                    out.writeInt(blob.size)
+                    offset += blob.size
+                }
+                blobs.forEach { out.write(it) }
+            }
+
+            if (!tmp.renameTo(compiled)) {
+                tmp.delete()
+                android.util.Log.e(TAG, "Could not move compiled book into place: ${compiled.name}")
+                return false
+            }
+            return true
+        } catch (e: Exception) {
+            android.util.Log.e(TAG, "Failed to write compiled book", e)
+            tmp.delete()
+            return false
+        }
+    }
+
+    fun delete(sourcePath: String) {
+        compiledFileFor(File(sourcePath)).delete()
+    }
+
+    private fun compiledFileFor(source: File): File {
+        val dir = File(context.filesDir, "compiled")
+        if (!dir.exists()) dir.mkdirs()
+        val key = Integer.toHexString(source.absolutePath.hashCode())
+        return File(dir, "${source.nameWithoutExtension}_$key.lbc")
+    }
+
+    /**
+     * Decodes one chapter blob per [load], reading it straight from its offset in the file.
+     */
+    private inner class CompiledChapterSource(
+        private val file: File,
+        private val titles: List<String>,
+        private val offsets: LongArray,
+        private val lengths: IntArray
+    ) : ChapterSource {
+        override val size: Int
+            get() = titles.size
+
+        override fun titleAt(index: Int): String = titles[index]
+
+        override suspend fun load(index: Int): Chapter = withContext(Dispatchers.IO) {
+            val blob = ByteArray(lengths[index])
+            RandomAccessFile(file, "r").use { raf ->
+                raf.seek(offsets[index])
+                raf.readFully(blob)
+            }
+            val elements = DataInputStream(ByteArrayInputStream(blob)).use { readElements(it) }
+            Chapter(title = titles[index], elements = elements)
+        }
+    }
+
+    private class Header(
+        val formatVersion: Int,
+        val parserVersion: Int,
+        val sourceLength: Long,
+        val sourceLastModified: Long,
+        val title: String,
+        val author: String,
+        val chapterTitles: List<String>
+    ) {
+        fun matches(source: File): Boolean {
+            return formatVersion == FORMAT_VERSION &&
+                parserVersion == RealEpubParser.PARSER_VERSION &&
+                sourceLength == source.length() &&
+                sourceLastModified == source.lastModified()
+        }
+    }
+
+    private fun readHeader(input: DataInputStream): Header {
+        if (input.readInt() != MAGIC) throw IllegalStateException("Not a compiled book")
+        val formatVersion = input.readInt()
+        if (formatVersion != FORMAT_VERSION) {
+            // Older layouts cannot be decoded any further, report as stale
+            return Header(formatVersion, -1, -1, -1, "", "", emptyList())
+        }
+        val parserVersion = input.readInt()
+        val sourceLength = input.readLong()
+        val sourceLastModified = input.readLong()
+        val title = readString(input)
+        val author = readString(input)
+        val chapterCount = input.readInt()
+        val chapterTitles = List(chapterCount) { readString(input) }
+        return Header(formatVersion, parserVersion, sourceLength, sourceLastModified, title, author, chapterTitles)
+    }
+
+    private fun writeElements(out: DataOutputStream, elements: List<ReaderElement>) {
+        out.writeInt(elements.size)
+        elements.forEach { writeElement(out, it) }
+    }
+
+    private fun writeElement(out: DataOutputStream, element: ReaderElement) {
+        when (element) {
+            is ReaderElement.Text -> {
+                out.writeByte(TAG_TEXT)
+                out.writeByte(element.style.ordinal)
+                writeString(out, element.content)
+                out.writeInt(element.spans.size)
+                element.spans.forEach { span ->
+                    out.writeInt(span.start)
+                    out.writeInt(span.end)
+                    out.writeByte(span.flags)
+                }
+            }
+            is ReaderElement.Image -> {
+                out.writeByte(TAG_IMAGE)
+                writeString(out, element.imagePath)
+                out.writeBoolean(element.caption != null)
+                if (element.caption != null) writeString(out, element.caption)
+                out.writeBoolean(element.isFullPage)
+                out.writeInt(element.width)
+                out.writeInt(element.height)
+            }
+            is ReaderElement.Table -> {
+                out.writeByte(TAG_TABLE)
+                out.writeInt(element.rows.size)
+                element.rows.forEach { row ->
+                    out.writeInt(row.cells.size)
+                    row.cells.forEach { cell ->
+                        out.writeBoolean(cell.isHeader)
+                        writeElements(out, cell.elements)
+                    }
+                }
+            }
+        }
+    }
+
+    private fun readElements(input: DataInputStream): List<ReaderElement> {
+        val count = input.readInt()
+        return List(count) { readElement(input) }
+    }
+
+    private fun readElement(input: DataInputStream): ReaderElement {
+        return when (val tag = input.readByte().toInt()) {
+            TAG_TEXT -> {
+                val style = READER_TEXT_STYLES[input.readByte().toInt()]
+                val content = readString(input)
+                val spans = List(input.readInt()) {
+                    TextSpan(input.readInt(), input.readInt(), input.readByte().toInt())
+                }
+                ReaderElement.Text(content, style, spans)
+            }
+            TAG_IMAGE -> {
+                val path = readString(input)
+                val caption = if (input.readBoolean()) readString(input) else null
+                ReaderElement.Image(path, caption, input.readBoolean(), input.readInt(), input.readInt())
+            }
+            TAG_TABLE -> {
+                val rows = List(input.readInt()) {
+                    val cells = List(input.readInt()) {
+                        val isHeader = input.readBoolean()
+                        TableCell(readElements(input), isHeader)
+                    }
+                    TableRow(cells)
+                }
+                ReaderElement.Table(rows)
+            }
+            else -> throw IllegalStateException("Unknown element tag $tag")
+        }
+    }
+
+    // DataOutputStream.writeUTF is limited to 64KB, which long paragraphs can exceed
+    private fun writeString(out: DataOutputStream, value: String) {
+        val bytes = value.toByteArray(Charsets.UTF_8)
+        out.writeInt(bytes.size)
+        out.write(bytes)
+    }
+
+    private fun readString(input: DataInputStream): String {
+        val bytes = ByteArray(input.readInt())
+        input.readFully(bytes)
+        return String(bytes, Charsets.UTF_8)
+    }
+
+    companion object {
+        private const val TAG = "CompiledBookStore"
+
+        private const val MAGIC = 0x4C555241 // "LURA"
+
+        /** Bump when the binary layout below changes. */
+        private const val FORMAT_VERSION = 3
+
+        private const val INDEX_ENTRY_SIZE = 12 // Long offset + Int length
+
+        private const val TAG_TEXT = 0
+        private const val TAG_IMAGE = 1
+        private const val TAG_TABLE = 2
+
+        private val READER_TEXT_STYLES = ReaderTextStyle.entries.toTypedArray()
+    }
+}
@@ -4,12 +4,12 @@ import android.content.Context
 import org.jsoup.Jsoup
 import org.jsoup.parser.Parser
 import java.io.File
-import java.util.zip.ZipFile
 import javax.inject.Inject
 import dagger.hilt.android.qualifiers.ApplicationContext
 
 class CoverExtractor @Inject constructor(
-    @ApplicationContext private val context: Context
+    @ApplicationContext private val context: Context,
+    private val archives: EpubArchiveService
 ) {
     /**
      * Extracts cover image from EPUB file and saves it to app storage.
@@ -25,9 +25,9 @@ class CoverExtractor @Inject constructor(
         android.util.Log.d("CoverExtractor", "Starting cover extraction for: $epubFilePath")
         
         return try {
-            ZipFile(file).use { zipFile ->
+            archives.withArchive(epubFilePath) { archive ->
                 // 1. Find OPF path
-                val opfPath = findOpfPath(zipFile)
+                val opfPath = findOpfPath(archive)
                 if (opfPath == null) {
                     android.util.Log.e("CoverExtractor", "Could not find OPF path")
                     return null
@@ -35,7 +35,7 @@ class CoverExtractor @Inject constructor(
                 android.util.Log.d("CoverExtractor", "Found OPF path: $opfPath")
                 
                 // 2. Parse OPF to find cover image reference
-                val coverImagePath = findCoverImageInOpf(zipFile, opfPath)
+                val coverImagePath = findCoverImageInOpf(archive, opfPath)
                 if (coverImagePath == null) {
                     android.util.Log.e("CoverExtractor", "Could not find cover image reference in OPF")
                     return null
@@ -43,7 +43,7 @@ class CoverExtractor @Inject constructor(
                 android.util.Log.d("CoverExtractor", "Found cover image path: $coverImagePath")
                 
                 // 3. Extract cover image from EPUB
-                val imageBytes = extractImageFromZip(zipFile, coverImagePath, opfPath)
+                val imageBytes = extractImageFromZip(archive, coverImagePath, opfPath)
                 if (imageBytes == null) {
                     android.util.Log.e("CoverExtractor", "Could not extract image from ZIP")
                     return null
@@ -62,10 +62,9 @@ class CoverExtractor @Inject constructor(
         }
     }
 
-    private fun findOpfPath(zipFile: ZipFile): String? {
+    private fun findOpfPath(archive: EpubArchive): String? {
         return try {
-            val containerEntry = zipFile.getEntry("META-INF/container.xml") ?: return null
-            val containerXml = zipFile.getInputStream(containerEntry).bufferedReader().use { it.readText() }
+            val containerXml = archive.readText("META-INF/container.xml") ?: return null
             val doc = Jsoup.parse(containerXml, "", Parser.xmlParser())
             doc.select("rootfile").first()?.attr("full-path")
         } catch (e: Exception) {
@@ -74,10 +73,9 @@ class CoverExtractor @Inject constructor(
         }
     }
 
-    private fun findCoverImageInOpf(zipFile: ZipFile, opfPath: String): String? {
+    private fun findCoverImageInOpf(archive: EpubArchive, opfPath: String): String? {
         return try {
-            val opfEntry = getEntryCaseInsensitive(zipFile, opfPath) ?: return null
-            val opfXml = zipFile.getInputStream(opfEntry).bufferedReader().use { it.readText() }
+            val opfXml = archive.readText(opfPath) ?: return null
             val doc = Jsoup.parse(opfXml, "", Parser.xmlParser())
 
             // Strategy 1: Look for <meta name="cover" content="cover-image-id"/>
@@ -119,7 +117,7 @@ class CoverExtractor @Inject constructor(
         }
     }
 
-    private fun extractImageFromZip(zipFile: ZipFile, imagePath: String, opfPath: String): ByteArray? {
+    private fun extractImageFromZip(archive: EpubArchive, imagePath: String, opfPath: String): ByteArray? {
         return try {
             // Resolve relative path (image path is relative to OPF location)
             val opfDir = File(opfPath).parent ?: ""
@@ -131,8 +129,7 @@ class CoverExtractor @Inject constructor(
             }.replace("//", "/")
 
             // Try to find the image entry
-            val imageEntry = getEntryCaseInsensitive(zipFile, fullImagePath) ?: return null
-            zipFile.getInputStream(imageEntry).readBytes()
+            archive.readBytes(fullImagePath)
         } catch (e: Exception) {
             e.printStackTrace()
             null
@@ -153,25 +150,4 @@ class CoverExtractor @Inject constructor(
         
         return coverFile.absolutePath
     }
-
-    private fun getEntryCaseInsensitive(zipFile: ZipFile, path: String): java.util.zip.ZipEntry? {
-        // Try exact match first
-        val exact = zipFile.getEntry(path)
-        if (exact != null) return exact
-
-        // Try case-insensitive search
-        val target = path.replace("\\", "/")
-        val entries = zipFile.entries()
-        while (entries.hasMoreElements()) {
-            val entry = entries.nextElement()
-            val entryName = entry.name.replace("\\", "/")
-            if (entryName.equals(target, ignoreCase = true)) {
-                return entry
-            }
-            if (entryName.endsWith("/$target", ignoreCase = true)) {
-                return entry
-            }
-        }
-        return null
-    }
 }
@@ -0,0 +1,71 @@
+package com.lura.data.engine
+
+import java.io.Closeable
+import java.io.File
+import java.io.InputStream
+import java.util.Locale
+import java.util.zip.ZipEntry
+import java.util.zip.ZipFile
+
+/**
+ * An open EPUB container with a lookup index over its entries.
+ *
+ * EPUBs reference their files with inconsistent case, backslashes, or paths relative to a
+ * directory we did not resolve. The index is built once when the archive is opened so every
+ * lookup is a hash hit instead of a scan over all entries.
+ */
+class EpubArchive(val file: File) : Closeable {
+
+    private val zipFile = ZipFile(file)
+
+    // Case-folded, slash-normalized full entry names
+    private val entriesByPath = HashMap<String, ZipEntry>()
+
+    // Every "/"-aligned tail of each entry name ("oebps/images/a.png" -> "images/a.png", "a.png").
+    // First entry in archive order wins, like the linear scans this replaces.
+    private val entriesBySuffix = HashMap<String, ZipEntry>()
+
+    init {
+        val entries = zipFile.entries()
+        while (entries.hasMoreElements()) {
+            val entry = entries.nextElement()
+            val key = normalize(entry.name)
+            entriesByPath.putIfAbsent(key, entry)
+
+            var slash = key.indexOf('/')
+            while (slash != -1 && slash < key.length - 1) {
+                entriesBySuffix.putIfAbsent(key.substring(slash + 1), entry)
+                slash = key.indexOf('/', slash + 1)
+            }
+        }
+    }
+
+    /**
+     * Resolves [path] exactly, then case-insensitively, then as the tail of a deeper entry.
+     */
+    fun getEntry(path: String): ZipEntry? {
+        zipFile.getEntry(path)?.let { return it }
+        val key = normalize(path)
+        return entriesByPath[key] ?: entriesBySuffix[key]
+    }
+
+    fun getInputStream(entry: ZipEntry): InputStream = zipFile.getInputStream(entry)
+
+    fun readBytes(path: String): ByteArray? {
+        val entry = getEntry(path) ?: return null
+        return getInputStream(entry).use { it.readBytes() }
+    }
+
+    fun readText(path: String): String? {
+        val entry = getEntry(path) ?: return null
+        return getInputStream(entry).bufferedReader().use { it.readText() }
+    }
+
+    override fun close() {
+        zipFile.close()
+    }
+
+    private fun normalize(path: String): String {
+        return path.replace('\\', '/').lowercase(Locale.ROOT)
+    }
+}
@@ -0,0 +1,185 @@
+package com.lura.data.engine
+
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import java.io.File
+import java.util.concurrent.TimeUnit
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Single entry point for reading files out of an EPUB.
+ *
+ * The parser, the cover extractor and the in-book image loader all go through here so they share
+ * the same [EpubArchive] index and lookup rules.
+ *
+ * Open archives are pooled: a reading session keeps hitting the same book, so the central
+ * directory is read and indexed once and each image read only costs inflating its entry. Handles
+ * are reference counted, the least recently used idle ones are closed once more than
+ * [MAX_OPEN_ARCHIVES] are open, and any handle left idle for [IDLE_TIMEOUT_MS] is closed as well.
+ */
+@Singleton
+class EpubArchiveService @Inject constructor() {
+
+    private class PooledArchive(
+        val archive: EpubArchive,
+        val sourceLength: Long,
+        val sourceLastModified: Long
+    ) {
+        var refCount = 0
+        var releasedAt = 0L
+    }
+
+    // Access-ordered, so iteration starts at the least recently used handle
+    private val pool = LinkedHashMap<String, PooledArchive>(MAX_OPEN_ARCHIVES * 2, 0.75f, true)
+
+    // Every handle not yet closed, including ones retired from the pool while still in use
+    private val handles = HashMap<EpubArchive, PooledArchive>()
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    private var idleSweep: Job? = null
+
+    /**
+     * Runs [block] with the archive at [filePath] open. The handle goes back to the pool
+     * afterwards instead of being closed.
+     */
+    inline fun <T> withArchive(filePath: String, block: (EpubArchive) -> T): T {
+        val archive = acquire(filePath)
+        try {
+            return block(archive)
+        } finally {
+            release(archive)
+        }
+    }
+
+    /**
+     * Returns an open archive for [filePath], reusing a pooled handle when the file has not
+     * changed since it was opened. Every call must be paired with [release].
+     */
+    fun acquire(filePath: String): EpubArchive {
+        val file = File(filePath)
+        if (!file.exists()) throw Exception("File not found: $filePath")
+        val key = file.path
+
+        synchronized(pool) {
+            val pooled = pool[key]
+            if (pooled != null) {
+                if (pooled.sourceLength == file.length() && pooled.sourceLastModified == file.lastModified()) {
+                    pooled.refCount++
+                    return pooled.archive
+                }
+                // The EPUB was replaced on disk, stop handing out the old handle
+                retire(key, pooled)
+            }
+        }
+
+        // Open outside the lock, building the index reads the whole central directory
+        val opened = PooledArchive(EpubArchive(file), file.length(), file.lastModified())
+
+        synchronized(pool) {
+            val raced = pool[key]
+            if (raced != null) {
+                // Another caller opened the same book meanwhile, share theirs
+                opened.archive.close()
+                raced.refCount++
+                return raced.archive
+            }
+            opened.refCount = 1
+            pool[key] = opened
+            handles[opened.archive] = opened
+            trimToSize()
+            return opened.archive
+        }
+    }
+
+    fun release(archive: EpubArchive) {
+        synchronized(pool) {
+            val pooled = handles[archive] ?: return
+            pooled.refCount--
+            if (pooled.refCount > 0) return
+
+            if (pool[archive.file.path] !== pooled) {
+                // Retired while in use, nobody else can reach it anymore
+                closeQuietly(pooled)
+                return
+            }
+            pooled.releasedAt = System.nanoTime()
+            trimToSize()
+            scheduleIdleSweep()
+        }
+    }
+
+    /**
+     * Closes the pooled handle for [filePath], e.g. when the book is deleted. A handle that is
+     * still in use is closed by its last [release].
+     */
+    fun evict(filePath: String) {
+        synchronized(pool) {
+            val key = File(filePath).path
+            pool[key]?.let { retire(key, it) }
+        }
+    }
+
+    private fun retire(key: String, pooled: PooledArchive) {
+        pool.remove(key)
+        if (pooled.refCount == 0) closeQuietly(pooled)
+    }
+
+    private fun trimToSize() {
+        if (pool.size <= MAX_OPEN_ARCHIVES) return
+        val iterator = pool.entries.iterator()
+        while (pool.size > MAX_OPEN_ARCHIVES && iterator.hasNext()) {
+            val pooled = iterator.next().value
+            // Handles in use may push the pool over its size until they are released
+            if (pooled.refCount == 0) {
+                iterator.remove()
+                closeQuietly(pooled)
+            }
+        }
+    }
+
+    private fun scheduleIdleSweep() {
+        if (idleSweep?.isActive == true) return
+        idleSweep = scope.launch {
+            while (true) {
+                delay(IDLE_TIMEOUT_MS)
+                synchronized(pool) {
+                    val now = System.nanoTime()
+                    val iterator = pool.entries.iterator()
+                    while (iterator.hasNext()) {
+                        val pooled = iterator.next().value
+                        if (pooled.refCount == 0 && now - pooled.releasedAt >= IDLE_TIMEOUT_NANOS) {
+                            iterator.remove()
+                            closeQuietly(pooled)
+                        }
+                    }
+                    if (pool.values.none { it.refCount == 0 }) {
+                        idleSweep = null
+                        return@launch
+                    }
+                }
+            }
+        }
+    }
+
+    private fun closeQuietly(pooled: PooledArchive) {
+        handles.remove(pooled.archive)
+        try {
+            pooled.archive.close()
+        } catch (e: Exception) {
+            android.util.Log.w(TAG, "Failed to close ${pooled.archive.file.name}", e)
+        }
+    }
+
+    companion object {
+        private const val TAG = "EpubArchiveService"
+
+        const val MAX_OPEN_ARCHIVES = 3
+        const val IDLE_TIMEOUT_MS = 30_000L
+        private val IDLE_TIMEOUT_NANOS = TimeUnit.MILLISECONDS.toNanos(IDLE_TIMEOUT_MS)
+    }
+}
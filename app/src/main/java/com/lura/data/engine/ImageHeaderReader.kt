@@ -0,0 +1,146 @@
+package com.lura.data.engine
+
+import java.io.BufferedInputStream
+import java.io.DataInputStream
+import java.io.EOFException
+import java.io.InputStream
+
+/**
+ * Reads the pixel size of an image from its file header, without decoding it.
+ *
+ * Covers the formats EPUBs carry raster images in: JPEG, PNG, GIF and WebP. Only the bytes up to
+ * the size field are read, for JPEG that is everything before the first frame header.
+ */
+object ImageHeaderReader {
+
+    data class ImageSize(val width: Int, val height: Int)
+
+    /**
+     * The size of the image in [input], or null if the format is not recognised or the header is
+     * damaged. Does not close [input].
+     */
+    fun readSize(input: InputStream): ImageSize? {
+        val data = DataInputStream(if (input is BufferedInputStream) input else BufferedInputStream(input, 512))
+        return try {
+            val signature = ByteArray(12)
+            data.readFully(signature, 0, 2)
+            when {
+                signature[0] == 0xFF.toByte() && signature[1] == 0xD8.toByte() -> readJpegSize(data)
+                else -> {
+                    data.readFully(signature, 2, signature.size - 2)
+                    when {
+                        signature.startsWith(PNG_SIGNATURE) -> readPngSize(data)
+                        signature.startsWith(GIF_SIGNATURE) -> readGifSize(signature)
+                        signature.startsWith(RIFF_SIGNATURE) && signature.copyOfRange(8, 12).startsWith(WEBP_SIGNATURE) -> readWebpSize(data)
+                        else -> null
+                    }
+                }
+            }?.takeIf { it.width > 0 && it.height > 0 }
+        } catch (e: EOFException) {
+            null
+        }
+    }
+
+    // Signature already read. Walks the segments up to the first start of frame.
+    private fun readJpegSize(data: DataInputStream): ImageSize? {
+        while (true) {
+            var marker = data.readUnsignedByte()
+            if (marker != 0xFF) return null
+            // Any number of fill bytes may precede a marker
+            while (marker == 0xFF) marker = data.readUnsignedByte()
+
+            when (marker) {
+                // Standalone markers carry no length
+                0x01, in 0xD0..0xD8 -> continue
+                // End of image or start of scan before any frame header
+                0xD9, 0xDA -> return null
+            }
+
+            val length = data.readUnsignedShort()
+            if (length < 2) return null
+            val isStartOfFrame = marker in 0xC0..0xCF && marker != 0xC4 && marker != 0xC8 && marker != 0xCC
+            if (isStartOfFrame) {
+                data.readUnsignedByte() // Sample precision
+                val height = data.readUnsignedShort()
+                val width = data.readUnsignedShort()
+                return ImageSize(width, height)
+            }
+            skipFully(data, length - 2L)
+        }
+    }
+
+    // First 12 bytes already read: the signature and the IHDR chunk length
+    private fun readPngSize(data: DataInputStream): ImageSize? {
+        val chunkType = ByteArray(4)
+        data.readFully(chunkType)
+        if (String(chunkType, Charsets.US_ASCII) != "IHDR") return null
+        return ImageSize(data.readInt(), data.readInt())
+    }
+
+    // Logical screen size, little endian, right after the 6 byte signature
+    private fun readGifSize(header: ByteArray): ImageSize {
+        val width = (header[6].toInt() and 0xFF) or ((header[7].toInt() and 0xFF) shl 8)
+        val height = (header[8].toInt() and 0xFF) or ((header[9].toInt() and 0xFF) shl 8)
+        return ImageSize(width, height)
+    }
+
+    // RIFF header already read, positioned at the first chunk
+    private fun readWebpSize(data: DataInputStream): ImageSize? {
+        val chunkType = ByteArray(4)
+        data.readFully(chunkType)
+        data.readInt() // Chunk size
+        return when (String(chunkType, Charsets.US_ASCII)) {
+            "VP8 " -> {
+                // Frame tag, then the key frame start code
+                skipFully(data, 3)
+                if (data.readUnsignedByte() != 0x9D || data.readUnsignedByte() != 0x01 || data.readUnsignedByte() != 0x2A) return null
+                ImageSize(readLittleEndian(data, 2) and 0x3FFF, readLittleEndian(data, 2) and 0x3FFF)
+            }
+            "VP8L" -> {
+                if (data.readUnsignedByte() != 0x2F) return null
+                val bits = readLittleEndian(data, 4)
+                ImageSize((bits and 0x3FFF) + 1, ((bits ushr 14) and 0x3FFF) + 1)
+            }
+            "VP8X" -> {
+                skipFully(data, 4) // Feature flags and reserved bytes
+                ImageSize(readLittleEndian(data, 3) + 1, readLittleEndian(data, 3) + 1)
+            }
+            else -> null
+        }
+    }
+
+    private fun readLittleEndian(data: DataInputStream, byteCount: Int): Int {
+        var value = 0
+        for (i in 0 until byteCount) {
+            value = value or (data.readUnsignedByte() shl (8 * i))
+        }
+        return value
+    }
+
+    private fun skipFully(data: DataInputStream, count: Long) {
+        var remaining = count
+        while (remaining > 0) {
+            val skipped = data.skip(remaining)
+            if (skipped <= 0) {
+                // skip() may stop short without being at the end, read a byte to find out
+                data.readByte()
+                remaining--
+            } else {
+                remaining -= skipped
+            }
+        }
+    }
+
+    private fun ByteArray.startsWith(prefix: ByteArray): Boolean {
+        if (size < prefix.size) return false
+        for (i in prefix.indices) {
+            if (this[i] != prefix[i]) return false
+        }
+        return true
+    }
+
+    private val PNG_SIGNATURE = byteArrayOf(0x89.toByte(), 0x50, 0x4E, 0x47, 0x0D, 0x0A, 0x1A, 0x0A)
+    private val GIF_SIGNATURE = "GIF8".toByteArray(Charsets.US_ASCII)
+    private val RIFF_SIGNATURE = "RIFF".toByteArray(Charsets.US_ASCII)
+    private val WEBP_SIGNATURE = "WEBP".toByteArray(Charsets.US_ASCII)
+}
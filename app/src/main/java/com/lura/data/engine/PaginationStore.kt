@@ -0,0 +1,141 @@
+package com.lura.data.engine
+
+import android.content.Context
+import com.lura.domain.engine.BookPageBreaks
+import com.lura.domain.engine.PageSlice
+import dagger.hilt.android.qualifiers.ApplicationContext
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * On-disk cache of page break tables.
+ *
+ * Laying out a book is by far the most expensive part of opening it, yet the inputs (font, sizes,
+ * margins, screen) rarely change between sessions. Each table is stored per book under a key
+ * describing every layout input, so reopening with the same settings skips measuring entirely and
+ * any change simply misses the cache. Only the few most recently written layouts of each book are
+ * kept, which covers switching between portrait and landscape.
+ */
+@Singleton
+class PaginationStore @Inject constructor(
+    @ApplicationContext private val context: Context
+) {
+
+    fun read(bookId: String, layoutKey: String): BookPageBreaks? {
+        val file = fileFor(bookId, layoutKey)
+        if (!file.exists()) return null
+
+        return try {
+            DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                if (input.readInt() != MAGIC ||
+                    input.readInt() != FORMAT_VERSION ||
+                    input.readInt() != RealEpubParser.PARSER_VERSION ||
+                    input.readUTF() != layoutKey
+                ) {
+                    file.delete()
+                    return null
+                }
+
+                List(input.readInt()) {
+                    List(input.readInt()) {
+                        List(input.readInt()) {
+                            PageSlice(
+                                elementIndex = input.readInt(),
+                                start = input.readInt(),
+                                end = input.readInt(),
+                                startLine = input.readInt()
+                            )
+                        }
+                    }
+                }
+            }
+        } catch (e: Exception) {
+            android.util.Log.e(TAG, "Failed to read page breaks, discarding", e)
+            file.delete()
+            null
+        }
+    }
+
+    fun write(bookId: String, layoutKey: String, breaks: BookPageBreaks) {
+        val file = fileFor(bookId, layoutKey)
+        val tmp = File(file.parentFile, file.name + ".tmp")
+
+        try {
+            DataOutputStream(BufferedOutputStream(FileOutputStream(tmp))).use { out ->
+                out.writeInt(MAGIC)
+                out.writeInt(FORMAT_VERSION)
+                out.writeInt(RealEpubParser.PARSER_VERSION)
+                out.writeUTF(layoutKey)
+                out.writeInt(breaks.size)
+                breaks.forEach { chapterPages ->
+                    out.writeInt(chapterPages.size)
+                    chapterPages.forEach { slices ->
+                        out.writeInt(slices.size)
+                        slices.forEach { slice ->
+                            out.writeInt(slice.elementIndex)
+                            out.writeInt(slice.start)
+                            out.writeInt(slice.end)
+                            out.writeInt(slice.startLine)
+                        }
+                    }
+                }
+            }
+            if (!tmp.renameTo(file)) {
+                tmp.delete()
+                return
+            }
+            pruneOldLayouts(bookId)
+        } catch (e: Exception) {
+            android.util.Log.e(TAG, "Failed to write page breaks", e)
+            tmp.delete()
+        }
+    }
+
+    fun delete(bookId: String) {
+        filesFor(bookId).forEach { it.delete() }
+    }
+
+    private fun pruneOldLayouts(bookId: String) {
+        filesFor(bookId)
+            .sortedByDescending { it.lastModified() }
+            .drop(MAX_LAYOUTS_PER_BOOK)
+            .forEach { it.delete() }
+    }
+
+    private fun filesFor(bookId: String): List<File> {
+        val prefix = "${bookId}_"
+        return directory().listFiles { file -> file.name.startsWith(prefix) && file.name.endsWith(EXTENSION) }
+            ?.toList()
+            ?: emptyList()
+    }
+
+    private fun fileFor(bookId: String, layoutKey: String): File {
+        return File(directory(), "${bookId}_${Integer.toHexString(layoutKey.hashCode())}$EXTENSION")
+    }
+
+    private fun directory(): File {
+        val dir = File(context.filesDir, "pagination")
+        if (!dir.exists()) dir.mkdirs()
+        return dir
+    }
+
+    companion object {
+        private const val TAG = "PaginationStore"
+
+        private const val MAGIC = 0x4C505447 // "LPTG"
+
+        /** Bump when the binary layout above changes. */
+        private const val FORMAT_VERSION = 1
+
+        private const val EXTENSION = ".lpt"
+
+        private const val MAX_LAYOUTS_PER_BOOK = 3
+    }
+}
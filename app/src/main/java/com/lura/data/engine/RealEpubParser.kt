@@ -3,117 +3,182 @@ package com.lura.data.engine
 import com.lura.domain.engine.BookContent
 import com.lura.domain.engine.Chapter
 import com.lura.domain.engine.EpubParser
+import com.lura.domain.engine.InMemoryChapterSource
 import com.lura.domain.engine.ReaderElement
 import com.lura.domain.engine.ReaderTextStyle
+import com.lura.domain.engine.TextSpan
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.async
+import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.coroutineScope
+import kotlinx.coroutines.sync.Semaphore
+import kotlinx.coroutines.sync.withPermit
 import org.jsoup.Jsoup
 import org.jsoup.parser.Parser
 import java.io.File
 import java.io.InputStream
 import java.net.URLDecoder
-import java.util.zip.ZipFile
+import java.util.concurrent.ConcurrentHashMap
 import javax.inject.Inject
+import javax.inject.Qualifier
 
-class RealEpubParser @Inject constructor() : EpubParser {
+/** Maximum number of spine items [RealEpubParser] decodes and extracts at the same time. */
+@Qualifier
+@Retention(AnnotationRetention.BINARY)
+annotation class ParseParallelism
 
-    override suspend fun parseBook(filePath: String): BookContent {
-        val file = File(filePath)
-        if (!file.exists()) throw Exception("File not found: $filePath")
+class RealEpubParser @Inject constructor(
+    private val archives: EpubArchiveService,
+    @ParseParallelism private val parallelism: Int = DEFAULT_PARALLELISM
+) : EpubParser {
 
-        val zipFile = ZipFile(file)
-        
-        try {
-            // 1. Find OPF path from container.xml
-            val containerEntry = zipFile.getEntry("META-INF/container.xml") 
-                ?: throw Exception("Invalid EPUB: Missing container.xml")
-            
-            val containerXml = zipFile.getInputStream(containerEntry).bufferedReader().use { it.readText() }
-            val opfPath = parseContainerXml(containerXml)
-            
-            // 2. Parse OPF to get metadata and spine
-            val opfEntry = getEntryCaseInsensitive(zipFile, opfPath) 
-                ?: throw Exception("OPF file not found: $opfPath")
-                
-            val opfXml = zipFile.getInputStream(opfEntry).bufferedReader().use { it.readText() }
-            val (manifest, spine, metadata) = parseOpf(opfXml)
-            
-            // 3. Resolve base path for chapters (OPF might be in a subdir like "OEBPS/")
-            val opfDir = File(opfPath).parent ?: ""
-
-            // 3a. Parse NCX (TOC) if available for better titles
-            // Look for .ncx file in manifest
-            val ncxId = manifest.entries.find { it.value.endsWith(".ncx", ignoreCase = true) }?.key
-            val ncxHref = ncxId?.let { manifest[it] }
-            val tocMap = if (ncxHref != null) {
-                val ncxPath = if (opfDir.isNotEmpty()) "$opfDir/$ncxHref" else ncxHref
-                val entry = getEntryCaseInsensitive(zipFile, ncxPath)
-                if (entry != null) {
-                    val ncxXml = zipFile.getInputStream(entry).bufferedReader().use { it.readText() }
-                    parseNcx(ncxXml, ncxHref)
-                } else emptyMap()
-            } else emptyMap()
-            
-            // 4. Extract content from spine items
-            val chapters = spine.mapIndexedNotNull { index, itemId ->
-                val rawHref = manifest[itemId] ?: return@mapIndexedNotNull null
-                val href = URLDecoder.decode(rawHref, "UTF-8")
-                
-                // Handle relative paths correctly
-                // Handle relative paths correctly
-                val chapterPath = if (opfDir.isNotEmpty()) {
-                   // If href is absolute or starts with opfDir, respect it. Otherwise prepend.
-                   val cleanHref = href.removePrefix("/")
-                   if (cleanHref.startsWith(opfDir)) cleanHref else "$opfDir/$cleanHref"
-                } else {
-                    href.removePrefix("/")
-                }.replace("//", "/")
-
-                // Try to find the file
-                val entry = getEntryCaseInsensitive(zipFile, chapterPath)
-                if (entry == null) {
-                    println("EpubParser: Chapter file not found: $chapterPath (href: $href)")
-                    return@mapIndexedNotNull null
-                }
-                
-                val parsed = zipFile.getInputStream(entry).use { stream ->
-                    parseChapterHtml(stream, chapterPath)
+    companion object {
+        /**
+         * Version of the extraction output. Bump whenever a change here alters the produced
+         * [BookContent], so books compiled by [CompiledBookStore] get re-parsed.
+         */
+        const val PARSER_VERSION = 4
+
+        /** One spine item per core. */
+        val DEFAULT_PARALLELISM: Int
+            get() = Runtime.getRuntime().availableProcessors().coerceAtLeast(1)
+
+        // Cached for images whose header could not be read, the map cannot hold nulls
+        private val UNKNOWN_IMAGE_SIZE = ImageHeaderReader.ImageSize(0, 0)
+    }
+
+    override suspend fun parseBook(filePath: String): BookContent = archives.withArchive(filePath) { archive ->
+        // 1. Find OPF path from container.xml
+        val containerXml = archive.readText("META-INF/container.xml")
+            ?: throw Exception("Invalid EPUB: Missing container.xml")
+        val opfPath = parseContainerXml(containerXml)
+
+        // 2. Parse OPF to get metadata and spine
+        val opfXml = archive.readText(opfPath)
+            ?: throw Exception("OPF file not found: $opfPath")
+        val (manifest, spine, metadata) = parseOpf(opfXml)
+
+        // 3. Resolve base path for chapters (OPF might be in a subdir like "OEBPS/")
+        val opfDir = File(opfPath).parent ?: ""
+
+        // 3a. Parse NCX (TOC) if available for better titles
+        // Look for .ncx file in manifest
+        val ncxId = manifest.entries.find { it.value.endsWith(".ncx", ignoreCase = true) }?.key
+        val ncxHref = ncxId?.let { manifest[it] }
+        val tocMap = if (ncxHref != null) {
+            val ncxPath = if (opfDir.isNotEmpty()) "$opfDir/$ncxHref" else ncxHref
+            archive.readText(ncxPath)?.let { parseNcx(it, ncxHref) } ?: emptyMap()
+        } else emptyMap()
+
+        // 4. Extract content from spine items, a bounded number at a time.
+        // The archive hands out independent entry streams safely across threads, and awaitAll
+        // returns results in spine order regardless of which item finished first.
+        val permits = Semaphore(parallelism.coerceAtLeast(1))
+        val imageSizes = ConcurrentHashMap<String, ImageHeaderReader.ImageSize>()
+        val chapters = coroutineScope {
+            spine.map { itemId ->
+                async(Dispatchers.Default) {
+                    permits.withPermit { parseSpineItem(archive, itemId, manifest, opfDir, tocMap, imageSizes) }
                 }
-                
-                // Title Strategy:
-                // 1. Check TOC (NCX) map for official title
-                // 2. Fallback to extracting H1/H2 from content body (parsed.elements)
-                // 3. Fallback to HTML <title> tag (parsed.headTitle)
-                // 4. Fallback to empty string (Hide from TOC)
-                val cleanHref = href.removePrefix("/")
-                val officialTitle = tocMap[cleanHref]
-                
-                val contentTitle = parsed.elements
-                        .filterIsInstance<ReaderElement.Text>()
-                        .filter { it.style == ReaderTextStyle.Title || it.style == ReaderTextStyle.Heading }
-                        .firstOrNull()?.content?.take(50)
-
-                val title = officialTitle 
-                    ?: contentTitle 
-                    ?: parsed.headTitle.takeIf { it.isNotBlank() } 
-                    ?: ""
-                
-                Chapter(
-                    title = title.trim(),
-                    elements = parsed.elements
-                )
+            }.awaitAll().filterNotNull()
+        }
+
+        // 5. Build final content
+        val title = metadata["title"]?.ifBlank { null } ?: "Untitled Book"
+        val author = metadata["creator"]?.ifBlank { null } ?: "Unknown Author"
+
+        BookContent(
+            title = title,
+            author = author,
+            chapters = InMemoryChapterSource(chapters)
+        )
+    }
+
+    private fun parseSpineItem(
+        archive: EpubArchive,
+        itemId: String,
+        manifest: Map<String, String>,
+        opfDir: String,
+        tocMap: Map<String, String>,
+        imageSizes: MutableMap<String, ImageHeaderReader.ImageSize>
+    ): Chapter? {
+        val rawHref = manifest[itemId] ?: return null
+        val href = URLDecoder.decode(rawHref, "UTF-8")
+        
+        // Handle relative paths correctly
+        val chapterPath = if (opfDir.isNotEmpty()) {
+           // If href is absolute or starts with opfDir, respect it. Otherwise prepend.
+           val cleanHref = href.removePrefix("/")
+           if (cleanHref.startsWith(opfDir)) cleanHref else "$opfDir/$cleanHref"
+        } else {
+            href.removePrefix("/")
+        }.replace("//", "/")
+
+        // Try to find the file
+        val entry = archive.getEntry(chapterPath)
+        if (entry == null) {
+            println("EpubParser: Chapter file not found: $chapterPath (href: $href)")
+            return null
+        }
+        
+        val parsed = archive.getInputStream(entry).use { stream ->
+            parseChapterHtml(stream, chapterPath)
+        }
+        
+        // Title Strategy:
+        // 1. Check TOC (NCX) map for official title
+        // 2. Fallback to extracting H1/H2 from content body (parsed.elements)
+        // 3. Fallback to HTML <title> tag (parsed.headTitle)
+        // 4. Fallback to empty string (Hide from TOC)
+        val cleanHref = href.removePrefix("/")
+        val officialTitle = tocMap[cleanHref]
+        
+        val contentTitle = parsed.elements
+                .filterIsInstance<ReaderElement.Text>()
+                .filter { it.style == ReaderTextStyle.Title || it.style == ReaderTextStyle.Heading }
+                .firstOrNull()?.content?.take(50)
+
+        val title = officialTitle 
+            ?: contentTitle 
+            ?: parsed.headTitle.takeIf { it.isNotBlank() } 
+            ?: ""
+        
+        return Chapter(
+            title = title.trim(),
+            elements = parsed.elements.map { withImageSize(archive, it, imageSizes) }
+        )
+    }
+
+    /**
+     * Fills in the intrinsic size of images (also inside tables) from their file headers, so the
+     * reader knows how tall they are drawn without decoding them. [sizes] is shared by all
+     * chapters, books tend to repeat the same ornaments and dividers.
+     */
+    private fun withImageSize(
+        archive: EpubArchive,
+        element: ReaderElement,
+        sizes: MutableMap<String, ImageHeaderReader.ImageSize>
+    ): ReaderElement {
+        return when (element) {
+            is ReaderElement.Image -> {
+                val size = sizes.getOrPut(element.imagePath) { readImageSize(archive, element.imagePath) }
+                if (size == UNKNOWN_IMAGE_SIZE) element else element.copy(width = size.width, height = size.height)
             }
+            is ReaderElement.Table -> element.copy(rows = element.rows.map { row ->
+                row.copy(cells = row.cells.map { cell ->
+                    cell.copy(elements = cell.elements.map { withImageSize(archive, it, sizes) })
+                })
+            })
+            is ReaderElement.Text -> element
+        }
+    }
 
-            // 5. Build final content
-            val title = metadata["title"]?.ifBlank { null } ?: "Untitled Book"
-            val author = metadata["creator"]?.ifBlank { null } ?: "Unknown Author"
-            
-            return BookContent(
-                title = title,
-                author = author,
-                chapters = chapters
-            )
-
-        } finally {
-            zipFile.close()
+    private fun readImageSize(archive: EpubArchive, path: String): ImageHeaderReader.ImageSize {
+        val entry = archive.getEntry(path) ?: return UNKNOWN_IMAGE_SIZE
+        return try {
+            archive.getInputStream(entry).use { ImageHeaderReader.readSize(it) } ?: UNKNOWN_IMAGE_SIZE
+        } catch (e: Exception) {
+            UNKNOWN_IMAGE_SIZE
         }
     }
 
@@ -139,28 +204,21 @@ class RealEpubParser @Inject constructor() : EpubParser {
         return map
     }
 
-    private fun getEntryCaseInsensitive(zipFile: ZipFile, path: String): java.util.zip.ZipEntry? {
-        val exact = zipFile.getEntry(path)
-        if (exact != null) return exact
-
-        val target = path.replace("\\", "/")
-        val entries = zipFile.entries()
-        while (entries.hasMoreElements()) {
-            val entry = entries.nextElement()
-            val entryName = entry.name.replace("\\", "/")
-            if (entryName.equals(target, ignoreCase = true)) {
-                return entry
-            }
-            if (entryName.endsWith("/$target", ignoreCase = true)) {
-                 return entry
-            }
-        }
-        return null
+    internal data class ParsedChapter(val headTitle: String, val elements: List<ReaderElement>)
+
+    /**
+     * Receives extracted elements in document order. Every nesting level writes into the sink it
+     * was handed instead of returning its own list, so each element is produced exactly once.
+     */
+    private fun interface ElementSink {
+        fun emit(element: ReaderElement)
     }
 
-    private data class ParsedChapter(val headTitle: String, val elements: List<ReaderElement>)
+    /** A formatting element being extracted: its style flags and where its text starts in the buffer. */
+    private class OpenRun(val flags: Int, var start: Int)
 
-    private fun parseChapterHtml(stream: InputStream, href: String): ParsedChapter {
+    // Internal for the extraction golden tests
+    internal fun parseChapterHtml(stream: InputStream, href: String): ParsedChapter {
         val doc = Jsoup.parse(stream, "UTF-8", "")
         
         // Determine the base directory of *this* file relative to the OPF root/zip root.
@@ -173,167 +231,182 @@ class RealEpubParser @Inject constructor() : EpubParser {
         
         val body = doc.body()
         
-        // Recursively extract elements
-        elements.addAll(extractNode(body, baseDir))
+        // Single pass over the body, straight into the chapter's element list
+        extractNode(body, baseDir) { elements.add(it) }
         
         return ParsedChapter(headTitle, elements)
     }
 
-    private fun extractNode(node: org.jsoup.nodes.Node, baseDir: String): List<ReaderElement> {
-        val results = mutableListOf<ReaderElement>()
-        
+    private fun extractNode(node: org.jsoup.nodes.Node, baseDir: String, sink: ElementSink) {
         if (node is org.jsoup.nodes.TextNode) {
             val text = cleanText(node.text())
             if (text.isNotBlank()) {
-                results.add(ReaderElement.Text(text, ReaderTextStyle.Body))
+                sink.emit(ReaderElement.Text(text, ReaderTextStyle.Body))
             }
-            return results
+            return
         }
         
-        if (node is org.jsoup.nodes.Element) {
-            // Ignore hidden elements and page markers
-            if (node.hasAttr("hidden") || node.attr("role") == "doc-pagebreak" || node.attr("aria-hidden") == "true") {
-                return emptyList()
-            }
-            
-            when (node.tagName()) {
+        if (node !is org.jsoup.nodes.Element) return
+
+        // Ignore hidden elements and page markers
+        if (node.hasAttr("hidden") || node.attr("role") == "doc-pagebreak" || node.attr("aria-hidden") == "true") {
+            return
+        }
+        
+        when (node.tagName()) {
             "img", "svg" -> {
-                     // Standalone images at block level are likely chapter covers or section dividers
-                     val src = node.attr("src").takeIf { it.isNotEmpty() } ?: node.attr("xlink:href")
-                     if (!src.isNullOrEmpty()) {
-                         val fullPath = resolveRelativePath(baseDir, src)
-                         val alt = node.attr("alt")
-                         results.add(ReaderElement.Image(fullPath, alt, isFullPage = true))
-                     }
+                // Standalone images at block level are likely chapter covers or section dividers
+                val src = node.attr("src").takeIf { it.isNotEmpty() } ?: node.attr("xlink:href")
+                if (!src.isNullOrEmpty()) {
+                    val fullPath = resolveRelativePath(baseDir, src)
+                    val alt = node.attr("alt")
+                    sink.emit(ReaderElement.Image(fullPath, alt, isFullPage = true))
                 }
-                "h1", "h2", "h3", "h4", "h5", "h6" -> {
-                    val text = cleanText(node.text())
-                    if (text.isNotBlank()) {
-                        results.add(ReaderElement.Text(text, ReaderTextStyle.Title))
-                    }
+            }
+            "h1", "h2", "h3", "h4", "h5", "h6" -> {
+                val text = cleanText(node.text())
+                if (text.isNotBlank()) {
+                    sink.emit(ReaderElement.Text(text, ReaderTextStyle.Title))
                 }
-                "p", "div", "section", "blockquote", "li", "span" -> { // Added span to block logic for mixed content? 
-                    // Actually, span is usually inline. But if we want to catch images inside span, we must recurse.
-                    
-                    // Check if this container ONLY has an image (no significant text) - treat as full-page
-                    val hasOnlyImage = node.children().size == 1 && 
-                                       node.children().first()?.let { it.tagName() == "img" || 
-                                           (it.tagName() in listOf("a", "span", "div") && it.select("img").isNotEmpty() && it.text().isBlank()) } == true &&
-                                       node.ownText().isBlank()
-                    
-                    if (hasOnlyImage) {
-                        // This is a full-page image container
-                        val imgElement = node.selectFirst("img")
-                        if (imgElement != null) {
-                            val src = imgElement.attr("src").takeIf { it.isNotEmpty() } ?: imgElement.attr("xlink:href")
-                            if (!src.isNullOrEmpty()) {
-                                val fullPath = resolveRelativePath(baseDir, src)
-                                val alt = imgElement.attr("alt")
-                                results.add(ReaderElement.Image(fullPath, alt, isFullPage = true))
-                                return results
-                            }
-                        }
-                    }
-                    
-                    val bufferedText = StringBuilder()
-                    
-                    node.childNodes().forEach { child ->
-                        if (child is org.jsoup.nodes.TextNode) {
-                            bufferedText.append(child.text())
-                        } else if (child is org.jsoup.nodes.Element) {
-                            if (isBlockTag(child.tagName())) {
-                                // Flush buffer
-                                if (bufferedText.isNotBlank()) {
-                                    val cleaned = cleanText(bufferedText.toString())
-                                    if (cleaned.isNotEmpty()) results.add(ReaderElement.Text(cleaned, getStyleForTag(node.tagName())))
-                                    bufferedText.clear()
-                                }
-                                // Recurse into block child
-                                results.addAll(extractNode(child, baseDir))
-                            } else if (child.tagName() == "img") {
-                                // Flush buffer
-                                if (bufferedText.isNotBlank()) {
-                                    val cleaned = cleanText(bufferedText.toString())
-                                    if (cleaned.isNotEmpty()) results.add(ReaderElement.Text(cleaned, getStyleForTag(node.tagName())))
-                                    bufferedText.clear()
-                                }
-                                // Add Image
-                                val src = child.attr("src")
-                                if (src.isNotEmpty()) {
-                                    val fullPath = resolveRelativePath(baseDir, src)
-                                    results.add(ReaderElement.Image(fullPath, child.attr("alt")))
-                                }
-                            } else if (child.tagName() == "br") {
-                                bufferedText.append("\n")
-                            } else {
-                                // Inline formatting (span, b, i, etc) - simple append text
-                                // IMPORTANT: Recurse into span to find images nested deep!
-                                // But extractNode returns List<ReaderElement>. We can't easily append to buffer.
-                                // If a span contains ONLY text/inline, we want text.
-                                // If it contains an IMG, we need to break.
-                                
-                                // Simplified approach: Recursively extract elements from the child.
-                                // If the result is ONLY text, append it.
-                                // If it has images, flush buffer, add results, continue.
-                                
-                                val childElements = extractNode(child, baseDir)
-                                childElements.forEach { el ->
-                                    if (el is ReaderElement.Text && el.style == ReaderTextStyle.Body) {
-                                        // Merge text into buffer to keep inline flow
-                                        bufferedText.append(el.content)
-                                    } else {
-                                        // It's a non-body text (Title?) or Image.
-                                        // Flush buffer first.
-                                        if (bufferedText.isNotBlank()) {
-                                            val cleaned = cleanText(bufferedText.toString())
-                                            if (cleaned.isNotEmpty()) results.add(ReaderElement.Text(cleaned, getStyleForTag(node.tagName())))
-                                            bufferedText.clear()
-                                        }
-                                        results.add(el)
-                                    }
-                                }
+            }
+            "p", "div", "section", "blockquote", "li", "span" -> extractTextContainer(node, baseDir, sink)
+            "table" -> {
+                val rows = mutableListOf<com.lura.domain.engine.TableRow>()
+                node.select("tr").forEach { tr ->
+                    val cells = mutableListOf<com.lura.domain.engine.TableCell>()
+                    tr.children().forEach { cell ->
+                        if (cell.tagName() == "td" || cell.tagName() == "th") {
+                            val cellElements = mutableListOf<ReaderElement>()
+                            cell.childNodes().forEach { child ->
+                                extractNode(child, baseDir) { cellElements.add(it) }
                             }
+                            cells.add(com.lura.domain.engine.TableCell(cellElements, cell.tagName() == "th"))
                         }
                     }
-                    
-                    // Final flush
-                    if (bufferedText.isNotBlank()) {
-                        val cleaned = cleanText(bufferedText.toString())
-                        // Use Caption style if parent was figure/figcaption? Not handled yet.
-                        if (cleaned.isNotEmpty()) results.add(ReaderElement.Text(cleaned, getStyleForTag(node.tagName())))
+                    if (cells.isNotEmpty()) {
+                        rows.add(com.lura.domain.engine.TableRow(cells))
                     }
                 }
-                "table" -> {
-                    val rows = mutableListOf<com.lura.domain.engine.TableRow>()
-                    node.select("tr").forEach { tr ->
-                        val cells = mutableListOf<com.lura.domain.engine.TableCell>()
-                        tr.children().forEach { cell ->
-                            if (cell.tagName() == "td" || cell.tagName() == "th") {
-                                val cellElements = mutableListOf<com.lura.domain.engine.ReaderElement>()
-                                cell.childNodes().forEach { child ->
-                                    cellElements.addAll(extractNode(child, baseDir))
-                                }
-                                cells.add(com.lura.domain.engine.TableCell(cellElements, cell.tagName() == "th"))
-                            }
-                        }
-                        if (cells.isNotEmpty()) {
-                            rows.add(com.lura.domain.engine.TableRow(cells))
-                        }
-                    }
-                    if (rows.isNotEmpty()) {
-                        results.add(com.lura.domain.engine.ReaderElement.Table(rows))
-                    }
+                if (rows.isNotEmpty()) {
+                    sink.emit(ReaderElement.Table(rows))
+                }
+            }
+            else -> {
+                // Generic container or unknown tag -> Recurse blindly
+                node.childNodes().forEach { child ->
+                    extractNode(child, baseDir, sink)
+                }
+            }
+        }
+    }
+
+    /**
+     * Block-ish containers (and span, so images nested in it are found): inline content is
+     * gathered into one paragraph, block children and images break it up.
+     */
+    private fun extractTextContainer(node: org.jsoup.nodes.Element, baseDir: String, sink: ElementSink) {
+        // Check if this container ONLY has an image (no significant text) - treat as full-page
+        val hasOnlyImage = node.children().size == 1 && 
+                           node.children().first()?.let { it.tagName() == "img" || 
+                               (it.tagName() in listOf("a", "span", "div") && it.select("img").isNotEmpty() && it.text().isBlank()) } == true &&
+                           node.ownText().isBlank()
+        
+        if (hasOnlyImage) {
+            // This is a full-page image container
+            val imgElement = node.selectFirst("img")
+            if (imgElement != null) {
+                val src = imgElement.attr("src").takeIf { it.isNotEmpty() } ?: imgElement.attr("xlink:href")
+                if (!src.isNullOrEmpty()) {
+                    val fullPath = resolveRelativePath(baseDir, src)
+                    val alt = imgElement.attr("alt")
+                    sink.emit(ReaderElement.Image(fullPath, alt, isFullPage = true))
+                    return
                 }
-                else -> {
-                    // Generic container or unknown tag -> Recurse blindly
-                    node.childNodes().forEach { child ->
-                        results.addAll(extractNode(child, baseDir))
+            }
+        }
+        
+        val style = getStyleForTag(node.tagName())
+        val bufferedText = StringBuilder()
+        val bufferedSpans = mutableListOf<TextSpan>()
+        val openRuns = mutableListOf<OpenRun>()
+
+        // Whitespace-only buffers are deliberately kept, they are trimmed away on the next flush
+        fun flushBuffer() {
+            if (bufferedText.isNotBlank()) {
+                // Formatting split by an image or a block covers the text on both sides of it
+                openRuns.forEach { run ->
+                    if (bufferedText.length > run.start) bufferedSpans.add(TextSpan(run.start, bufferedText.length, run.flags))
+                    run.start = 0
+                }
+                val (cleaned, spans) = cleanText(bufferedText.toString(), bufferedSpans)
+                if (cleaned.isNotEmpty()) sink.emit(ReaderElement.Text(cleaned, style, spans))
+                bufferedText.clear()
+                bufferedSpans.clear()
+            }
+        }
+
+        fun appendText(text: String) {
+            // Adjacent inline runs share the space between them, as a browser would render it
+            if (text.startsWith(' ') && bufferedText.endsWith(' ')) {
+                bufferedText.append(text, 1, text.length)
+            } else {
+                bufferedText.append(text)
+            }
+        }
+
+        // Inline children stream their body text into this paragraph, anything else ends it
+        val inlineSink = ElementSink { el ->
+            if (el is ReaderElement.Text && el.style == ReaderTextStyle.Body) {
+                val offset = bufferedText.length
+                el.spans.mapTo(bufferedSpans) { it.copy(start = it.start + offset, end = it.end + offset) }
+                bufferedText.append(el.content)
+            } else {
+                flushBuffer()
+                sink.emit(el)
+            }
+        }
+        
+        // Inside formatting only text and further formatting are handled here, anything else is
+        // extracted the same way it would be without the formatting around it
+        fun appendChildren(parent: org.jsoup.nodes.Element, nested: Boolean): Unit = parent.childNodes().forEach { child ->
+            if (child is org.jsoup.nodes.TextNode) {
+                appendText(child.text())
+            } else if (child is org.jsoup.nodes.Element) {
+                val flags = inlineStyleFlags(child.tagName())
+                if (flags != 0) {
+                    // Formatting is kept as a span over the text it wraps, however deep it nests
+                    val run = OpenRun(flags, bufferedText.length)
+                    openRuns.add(run)
+                    appendChildren(child, nested = true)
+                    openRuns.removeAt(openRuns.lastIndex)
+                    if (bufferedText.length > run.start) {
+                        bufferedSpans.add(TextSpan(run.start, bufferedText.length, flags))
+                    }
+                } else if (nested) {
+                    extractNode(child, baseDir, inlineSink)
+                } else if (isBlockTag(child.tagName())) {
+                    flushBuffer()
+                    extractNode(child, baseDir, sink)
+                } else if (child.tagName() == "img") {
+                    flushBuffer()
+                    val src = child.attr("src")
+                    if (src.isNotEmpty()) {
+                        val fullPath = resolveRelativePath(baseDir, src)
+                        sink.emit(ReaderElement.Image(fullPath, child.attr("alt")))
                     }
+                } else if (child.tagName() == "br") {
+                    bufferedText.append("\n")
+                } else {
+                    // Other inline markup (span, a, etc). Recurse so images nested deep are still found.
+                    extractNode(child, baseDir, inlineSink)
                 }
             }
         }
+
+        appendChildren(node, nested = false)
         
-        return results
+        // Final flush
+        flushBuffer()
     }
     
     private fun isBlockTag(tag: String): Boolean {
@@ -349,6 +422,16 @@ class RealEpubParser @Inject constructor() : EpubParser {
         }
     }
     
+    private fun inlineStyleFlags(tag: String): Int {
+        return when (tag) {
+            "b", "strong" -> TextSpan.BOLD
+            "i", "em", "cite", "dfn" -> TextSpan.ITALIC
+            "u", "ins" -> TextSpan.UNDERLINE
+            "s", "strike", "del" -> TextSpan.STRIKETHROUGH
+            else -> 0
+        }
+    }
+    
     private fun cleanText(text: String): String {
         return text.replace("\uFFFC", "")
                    .replace("\uFFFD", "")
@@ -356,6 +439,35 @@ class RealEpubParser @Inject constructor() : EpubParser {
                    .replace("\u200B", "")
                    .trim()
     }
+
+    /**
+     * [cleanText] for a paragraph with inline formatting, moving [spans] along with the
+     * characters they cover. Spans left empty are dropped.
+     */
+    private fun cleanText(text: String, spans: List<TextSpan>): Pair<String, List<TextSpan>> {
+        if (spans.isEmpty()) return cleanText(text) to emptyList()
+
+        // Where every offset of the original text ends up once the junk characters are gone
+        val cleaned = StringBuilder(text.length)
+        val cleanedOffsets = IntArray(text.length + 1)
+        text.forEachIndexed { index, c ->
+            cleanedOffsets[index] = cleaned.length
+            if (c != '\uFFFC' && c != '\uFFFD' && c != '\u200B') cleaned.append(c)
+        }
+        cleanedOffsets[text.length] = cleaned.length
+
+        val start = cleaned.indexOfFirst { !it.isWhitespace() }
+        if (start < 0) return "" to emptyList()
+        val end = cleaned.indexOfLast { !it.isWhitespace() } + 1
+        val trimmed = cleaned.substring(start, end)
+
+        val movedSpans = spans.mapNotNull { span ->
+            val spanStart = (cleanedOffsets[span.start] - start).coerceIn(0, trimmed.length)
+            val spanEnd = (cleanedOffsets[span.end] - start).coerceIn(0, trimmed.length)
+            if (spanStart < spanEnd) span.copy(start = spanStart, end = spanEnd) else null
+        }.sortedBy { it.start }
+        return trimmed to movedSpans
+    }
     
     private fun resolveRelativePath(baseDir: String, relativePath: String): String {
         if (relativePath.startsWith("/")) return relativePath.removePrefix("/")
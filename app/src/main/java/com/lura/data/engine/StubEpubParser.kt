@@ -3,6 +3,7 @@ package com.lura.data.engine
 import com.lura.domain.engine.BookContent
 import com.lura.domain.engine.Chapter
 import com.lura.domain.engine.EpubParser
+import com.lura.domain.engine.InMemoryChapterSource
 import javax.inject.Inject
 
 class StubEpubParser @Inject constructor() : EpubParser {
@@ -10,7 +11,7 @@ class StubEpubParser @Inject constructor() : EpubParser {
         return BookContent(
             title = "Moby Dick",
             author = "Herman Melville",
-            chapters = listOf(
+            chapters = InMemoryChapterSource(listOf(
                 Chapter(
                     title = "Chapter 1. Loomings.",
                     elements = listOf(
@@ -29,7 +30,7 @@ class StubEpubParser @Inject constructor() : EpubParser {
                         )
                     )
                 )
-            )
+            ))
         )
     }
 }
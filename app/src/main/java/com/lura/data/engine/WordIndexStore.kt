@@ -0,0 +1,88 @@
+package com.lura.data.engine
+
+import android.content.Context
+import com.lura.domain.engine.PulseWordIndex
+import dagger.hilt.android.qualifiers.ApplicationContext
+import java.io.BufferedInputStream
+import java.io.BufferedOutputStream
+import java.io.DataInputStream
+import java.io.DataOutputStream
+import java.io.File
+import java.io.FileInputStream
+import java.io.FileOutputStream
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * On-disk copy of each book's [PulseWordIndex].
+ *
+ * Word and sentence boundaries only depend on the parsed text, so they are found once when a book
+ * is imported and every later Pulse start, word count and sentence lookup reads them from here.
+ * Books imported before the index existed get theirs the first time it is asked for.
+ */
+@Singleton
+class WordIndexStore @Inject constructor(
+    @ApplicationContext private val context: Context
+) {
+
+    fun read(bookId: String): PulseWordIndex? {
+        val file = fileFor(bookId)
+        if (!file.exists()) return null
+
+        return try {
+            DataInputStream(BufferedInputStream(FileInputStream(file))).use { input ->
+                if (input.readInt() != MAGIC ||
+                    input.readInt() != FORMAT_VERSION ||
+                    input.readInt() != RealEpubParser.PARSER_VERSION
+                ) {
+                    file.delete()
+                    return null
+                }
+                PulseWordIndex.readFrom(input)
+            }
+        } catch (e: Exception) {
+            android.util.Log.e(TAG, "Failed to read word index, discarding", e)
+            file.delete()
+            null
+        }
+    }
+
+    fun write(bookId: String, index: PulseWordIndex) {
+        val file = fileFor(bookId)
+        val tmp = File(file.parentFile, file.name + ".tmp")
+
+        try {
+            DataOutputStream(BufferedOutputStream(FileOutputStream(tmp))).use { out ->
+                out.writeInt(MAGIC)
+                out.writeInt(FORMAT_VERSION)
+                out.writeInt(RealEpubParser.PARSER_VERSION)
+                index.writeTo(out)
+            }
+            if (!tmp.renameTo(file)) tmp.delete()
+        } catch (e: Exception) {
+            android.util.Log.e(TAG, "Failed to write word index", e)
+            tmp.delete()
+        }
+    }
+
+    fun delete(bookId: String) {
+        fileFor(bookId).delete()
+    }
+
+    private fun fileFor(bookId: String): File {
+        val dir = File(context.filesDir, "words")
+        if (!dir.exists()) dir.mkdirs()
+        return File(dir, "$bookId$EXTENSION")
+    }
+
+    companion object {
+        private const val TAG = "WordIndexStore"
+
+        private const val MAGIC = 0x4C575258 // "LWRX"
+
+        /** Bump when the binary layout or the tokenization rules change. */
+        private const val FORMAT_VERSION = 1
+
+        private const val EXTENSION = ".lwi"
+    }
+}
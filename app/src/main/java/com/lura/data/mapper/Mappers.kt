@@ -26,6 +26,8 @@ fun BookEntity.toDomain(): Book {
         currentPage = currentPage,
         totalPages = totalPages,
         currentChapter = currentChapter,
+        currentElement = currentElement,
+        currentCharOffset = currentCharOffset,
         progressPercentage = progressPercentage,
         lastReadTimestamp = lastReadTimestamp,
         lastReadDate = lastReadDate,
@@ -70,6 +72,8 @@ fun Book.toEntity(): BookEntity {
         currentPage = currentPage,
         totalPages = totalPages,
         currentChapter = currentChapter,
+        currentElement = currentElement,
+        currentCharOffset = currentCharOffset,
         progressPercentage = progressPercentage,
         lastReadTimestamp = lastReadTimestamp,
         lastReadDate = lastReadDate,
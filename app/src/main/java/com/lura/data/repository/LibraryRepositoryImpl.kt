@@ -6,7 +6,8 @@ import com.lura.data.db.entity.BookEntity
 import com.lura.data.db.entity.Highlight
 import com.lura.domain.model.Book
 import com.lura.domain.repository.LibraryRepository
-import com.lura.domain.engine.ReaderElement
+import com.lura.domain.engine.BookContent
+import com.lura.domain.engine.PulseWordIndex
 import com.lura.data.mapper.toDomain
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.first
@@ -19,9 +20,16 @@ class LibraryRepositoryImpl @Inject constructor(
     private val highlightDao: HighlightDao,
     @ApplicationContext private val context: android.content.Context,
     private val epubParser: com.lura.domain.engine.EpubParser,
-    private val coverExtractor: com.lura.data.engine.CoverExtractor
+    private val coverExtractor: com.lura.data.engine.CoverExtractor,
+    private val compiledBookStore: com.lura.data.engine.CompiledBookStore,
+    private val archives: com.lura.data.engine.EpubArchiveService,
+    private val paginationStore: com.lura.data.engine.PaginationStore,
+    private val wordIndexStore: com.lura.data.engine.WordIndexStore
 ) : LibraryRepository {
 
+    // Book files never move once imported, so image reads skip the Room lookup after the first one
+    private val bookFilePaths = java.util.concurrent.ConcurrentHashMap<String, String>()
+
     override fun getLibraryBooks(): Flow<List<Book>> {
         return bookDao.getAllBooks().map { entities ->
             entities.map { it.toDomain() }
@@ -51,12 +59,8 @@ class LibraryRepositoryImpl @Inject constructor(
 
         val content = epubParser.parseBook(destFile.absolutePath)
         
-        // Calculate total words from all chapters (Updated for ReaderElement)
-        val totalWordCount = content.chapters.sumOf { chapter ->
-            chapter.elements
-                .filterIsInstance<ReaderElement.Text>()
-                .sumOf { it.content.split("\\s+".toRegex()).size }
-        }
+        // Tokenize once for Pulse and sentence highlighting, the word count comes with it
+        val totalWordCount = buildWordIndex(bookId, content)
         
         // Extract cover image
         val coverImagePath = coverExtractor.extractCover(destFile.absolutePath, bookId)
@@ -99,11 +103,7 @@ class LibraryRepositoryImpl @Inject constructor(
 
         val content = epubParser.parseBook(destFile.absolutePath)
         
-        val totalWordCount = content.chapters.sumOf { chapter ->
-            chapter.elements
-                .filterIsInstance<ReaderElement.Text>()
-                .sumOf { it.content.split("\\s+".toRegex()).size }
-        }
+        val totalWordCount = buildWordIndex(bookId, content)
         
         // Extract cover image
         val coverImagePath = coverExtractor.extractCover(destFile.absolutePath, bookId)
@@ -125,14 +125,29 @@ class LibraryRepositoryImpl @Inject constructor(
         return newBookEntity.toDomain()
     }
     
-    override suspend fun updateProgress(bookId: String, progress: Float) {
-        bookDao.updateProgress(bookId, progress)
+    /**
+     * Builds and stores the book's word index, returning its word count.
+     * Loads one chapter at a time and closes the source afterwards.
+     */
+    private suspend fun buildWordIndex(bookId: String, content: BookContent): Int {
+        val index = content.chapters.use { chapters -> PulseWordIndex.build(chapters) }
+        wordIndexStore.write(bookId, index)
+        return index.size
+    }
+    
+    override suspend fun updateProgress(bookId: String, progress: Float, locator: com.lura.domain.engine.TextLocator) {
+        bookDao.updateProgress(bookId, progress, locator.chapterIndex, locator.elementIndex, locator.charOffset)
     }
 
     override suspend fun deleteBook(bookId: String) {
         val book = bookDao.getBookById(bookId)
         if (book != null) {
             bookDao.deleteBook(book)
+            bookFilePaths.remove(bookId)
+            archives.evict(book.filePath)
+            compiledBookStore.delete(book.filePath)
+            paginationStore.delete(bookId)
+            wordIndexStore.delete(bookId)
         }
     }
 
@@ -165,33 +180,19 @@ class LibraryRepositoryImpl @Inject constructor(
     }
 
     override suspend fun getBookImage(bookId: String, imagePath: String): ByteArray? {
-        val book = bookDao.getBookById(bookId) ?: return null
-        val file = java.io.File(book.filePath)
-        if (!file.exists()) return null
-
-        return try {
-            java.util.zip.ZipFile(file).use { zipFile ->
-                // Basic case-insensitive search (similar to Parser)
-                val target = imagePath.replace("\\", "/")
-                var entry = zipFile.getEntry(target)
-                
-                if (entry == null) {
-                    val entries = zipFile.entries()
-                    while (entries.hasMoreElements()) {
-                        val e = entries.nextElement()
-                        if (e.name.replace("\\", "/").equals(target, ignoreCase = true) ||
-                            e.name.endsWith("/$target", ignoreCase = true)) {
-                            entry = e
-                            break
-                        }
-                    }
-                }
-                
-                entry?.let { zipFile.getInputStream(it).readBytes() }
+        val filePath = bookFilePaths[bookId]
+            ?: bookDao.getBookById(bookId)?.filePath?.also { bookFilePaths[bookId] = it }
+            ?: return null
+        // Opening the archive and inflating the entry is disk work, keep it off the caller's thread
+        return kotlinx.coroutines.withContext(kotlinx.coroutines.Dispatchers.IO) {
+            if (!java.io.File(filePath).exists()) return@withContext null
+
+            try {
+                archives.withArchive(filePath) { it.readBytes(imagePath) }
+            } catch (e: Exception) {
+                e.printStackTrace()
+                null
             }
-        } catch (e: Exception) {
-            e.printStackTrace()
-            null
         }
     }
 
@@ -0,0 +1,112 @@
+package com.lura.data.repository
+
+import android.content.ComponentCallbacks2
+import android.content.Context
+import android.content.res.Configuration
+import com.lura.domain.engine.TextLocator
+import com.lura.domain.repository.LibraryRepository
+import dagger.hilt.android.qualifiers.ApplicationContext
+import kotlinx.coroutines.CoroutineScope
+import kotlinx.coroutines.Dispatchers
+import kotlinx.coroutines.Job
+import kotlinx.coroutines.NonCancellable
+import kotlinx.coroutines.SupervisorJob
+import kotlinx.coroutines.delay
+import kotlinx.coroutines.launch
+import kotlinx.coroutines.sync.Mutex
+import kotlinx.coroutines.sync.withLock
+import kotlinx.coroutines.withContext
+import java.util.concurrent.ConcurrentHashMap
+import javax.inject.Inject
+import javax.inject.Singleton
+
+/**
+ * Write-behind buffer for reading progress.
+ *
+ * Every page turn reports a position, but only the latest one per book matters. Updates are kept
+ * in memory and written at most once per [FLUSH_INTERVAL_MS], so fast swiping costs one Room
+ * update (and one re-emission of the library queries) instead of one per page. Pending positions
+ * are also written right away when the reader pauses, when it is closed and when the app goes to
+ * the background, so the last position survives the process being killed.
+ */
+@Singleton
+class ProgressWriter @Inject constructor(
+    @ApplicationContext context: Context,
+    private val repository: LibraryRepository
+) : ComponentCallbacks2 {
+
+    private class PendingProgress(val progressPercentage: Float, val locator: TextLocator)
+
+    private val pending = ConcurrentHashMap<String, PendingProgress>()
+
+    private val scope = CoroutineScope(SupervisorJob() + Dispatchers.IO)
+    private val writeMutex = Mutex()
+    private var scheduledFlush: Job? = null
+
+    init {
+        context.registerComponentCallbacks(this)
+    }
+
+    /**
+     * Records the position for [bookId], replacing any not yet written one.
+     */
+    fun update(bookId: String, progressPercentage: Float, locator: TextLocator) {
+        pending[bookId] = PendingProgress(progressPercentage, locator)
+        scheduleFlush()
+    }
+
+    /**
+     * Writes all pending positions now. Completes even if the caller is cancelled, so it is safe to
+     * call from a scope that is being torn down.
+     */
+    suspend fun flush() = withContext(NonCancellable) {
+        writeMutex.withLock {
+            for (bookId in pending.keys) {
+                val progress = pending.remove(bookId) ?: continue
+                try {
+                    repository.updateProgress(bookId, progress.progressPercentage, progress.locator)
+                } catch (e: Exception) {
+                    android.util.Log.e(TAG, "Failed to save progress for $bookId", e)
+                }
+            }
+        }
+    }
+
+    /**
+     * [flush] without waiting for it, for callers that cannot suspend.
+     */
+    fun flushAsync() {
+        if (pending.isEmpty()) return
+        scope.launch { flush() }
+    }
+
+    private fun scheduleFlush() {
+        synchronized(this) {
+            if (scheduledFlush?.isActive == true) return
+            scheduledFlush = scope.launch {
+                delay(FLUSH_INTERVAL_MS)
+                flush()
+                synchronized(this@ProgressWriter) { scheduledFlush = null }
+                // Updates that arrived while writing were not scheduled on their own
+                if (pending.isNotEmpty()) scheduleFlush()
+            }
+        }
+    }
+
+    override fun onTrimMemory(level: Int) {
+        // UI_HIDDEN is the first signal that the app went to the background
+        if (level >= ComponentCallbacks2.TRIM_MEMORY_UI_HIDDEN) flushAsync()
+    }
+
+    override fun onLowMemory() {
+        flushAsync()
+    }
+
+    override fun onConfigurationChanged(newConfig: Configuration) {}
+
+    companion object {
+        private const val TAG = "ProgressWriter"
+
+        const val FLUSH_INTERVAL_MS = 2_000L
+    }
+}
@@ -23,6 +23,7 @@ object AppModule {
             AppDatabase::class.java,
             "lura_db"
         )
+            .addMigrations(AppDatabase.MIGRATION_4_5)
             .fallbackToDestructiveMigration()
             .build()
     }
@@ -38,6 +39,19 @@ object AppModule {
     fun provideHighlightDao(db: AppDatabase): com.lura.data.db.dao.HighlightDao {
         return db.highlightDao()
     }
+
+    // Lower on devices that run out of memory importing large books
+    @Provides
+    @com.lura.data.engine.ParseParallelism
+    fun provideParseParallelism(): Int {
+        return com.lura.data.engine.RealEpubParser.DEFAULT_PARALLELISM
+    }
+
+    // Choreographer frames, the same ones the reader is drawn on
+    @Provides
+    fun providePulseFrameClock(): com.lura.domain.engine.PulseFrameClock {
+        return com.lura.domain.engine.PulseFrameClock { kotlinx.coroutines.android.awaitFrame() }
+    }
 }
 
 @Module
@@ -53,6 +67,6 @@ abstract class RepositoryModule {
     @dagger.Binds
     @Singleton
     abstract fun bindEpubParser(
-        impl: com.lura.data.engine.RealEpubParser
+        impl: com.lura.data.engine.CachingEpubParser
     ): com.lura.domain.engine.EpubParser
 }
@@ -0,0 +1,116 @@
+package com.lura.domain.engine
+
+import java.io.Closeable
+
+/**
+ * Random access to the chapters of a book.
+ *
+ * Chapter titles are always available (TOC, breadcrumbs) while chapter bodies are loaded on
+ * demand, so a reading session only keeps the chapters it is actually looking at in memory.
+ */
+interface ChapterSource : Closeable {
+    val size: Int
+
+    fun titleAt(index: Int): String
+
+    suspend fun load(index: Int): Chapter
+
+    /** Tells the source which chapter is on screen, so nearby chapters are kept in memory. */
+    fun setReadingPosition(chapterIndex: Int) {}
+
+    /** Drops everything that is cheap to load again. */
+    fun trimMemory() {}
+
+    override fun close() {}
+}
+
+val ChapterSource.indices: IntRange
+    get() = 0 until size
+
+/**
+ * Fully materialized chapters, used for books that were never compiled to disk.
+ */
+class InMemoryChapterSource(private val chapters: List<Chapter>) : ChapterSource {
+    override val size: Int
+        get() = chapters.size
+
+    override fun titleAt(index: Int): String = chapters[index].title
+
+    override suspend fun load(index: Int): Chapter = chapters[index]
+}
+
+/**
+ * Keeps a bounded number of chapters from [delegate] in memory.
+ *
+ * When full, the cached chapter farthest from the current reading position is evicted first,
+ * with least recently used as the tie breaker, so the chapters around the reader survive
+ * pagination and search sweeping through the whole book.
+ */
+class LruChapterSource(
+    private val delegate: ChapterSource,
+    private val maxChapters: Int = DEFAULT_MAX_CHAPTERS
+) : ChapterSource {
+
+    // Access-ordered: iteration starts at the least recently used entry
+    private val cache = LinkedHashMap<Int, Chapter>(maxChapters + 1, 0.75f, true)
+
+    @Volatile
+    private var readingPosition = 0
+
+    override val size: Int
+        get() = delegate.size
+
+    override fun titleAt(index: Int): String = delegate.titleAt(index)
+
+    override suspend fun load(index: Int): Chapter {
+        synchronized(cache) {
+            cache[index]?.let { return it }
+        }
+
+        val chapter = delegate.load(index)
+
+        synchronized(cache) {
+            cache[index] = chapter
+            while (cache.size > maxChapters) {
+                evictOne()
+            }
+        }
+        return chapter
+    }
+
+    override fun setReadingPosition(chapterIndex: Int) {
+        readingPosition = chapterIndex
+    }
+
+    override fun trimMemory() {
+        synchronized(cache) {
+            val current = cache[readingPosition]
+            cache.clear()
+            if (current != null) cache[readingPosition] = current
+        }
+    }
+
+    override fun close() {
+        synchronized(cache) { cache.clear() }
+        delegate.close()
+    }
+
+    private fun evictOne() {
+        val position = readingPosition
+        var victim = -1
+        var victimDistance = -1
+        for (index in cache.keys) {
+            val distance = kotlin.math.abs(index - position)
+            // Strictly greater keeps the least recently used among equally distant chapters
+            if (distance > victimDistance) {
+                victim = index
+                victimDistance = distance
+            }
+        }
+        cache.remove(victim)
+    }
+
+    companion object {
+        const val DEFAULT_MAX_CHAPTERS = 5
+    }
+}
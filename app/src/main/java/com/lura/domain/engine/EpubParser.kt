@@ -7,7 +7,7 @@ interface EpubParser {
 data class BookContent(
     val title: String,
     val author: String,
-    val chapters: List<Chapter>
+    val chapters: ChapterSource
 )
 
 data class Chapter(
@@ -20,13 +20,16 @@ sealed class ReaderElement {
         val content: String, // We will use simple string first, but UI will handle styles. or use AnnotatedString logic in UI mapper? 
         // Ideally domain shouldn't know about AnnotatedString (Compose).
         // Let's keep it generic:
-        val style: ReaderTextStyle = ReaderTextStyle.Body
+        val style: ReaderTextStyle = ReaderTextStyle.Body,
+        val spans: List<TextSpan> = emptyList() // Inline formatting, in order of [TextSpan.start]
     ) : ReaderElement()
 
     data class Image(
         val imagePath: String, 
         val caption: String? = null,
-        val isFullPage: Boolean = false 
+        val isFullPage: Boolean = false,
+        val width: Int = 0, // Intrinsic size in pixels, 0 when unknown
+        val height: Int = 0
     ) : ReaderElement()
 
     data class Table(
@@ -34,6 +37,23 @@ sealed class ReaderElement {
     ) : ReaderElement()
 }
 
+/**
+ * Inline formatting of a [ReaderElement.Text]: the [flags] apply to the characters of its content
+ * from [start] until [end]. Spans may nest and overlap.
+ */
+data class TextSpan(
+    val start: Int,
+    val end: Int,
+    val flags: Int
+) {
+    companion object {
+        const val BOLD = 1
+        const val ITALIC = 1 shl 1
+        const val UNDERLINE = 1 shl 2
+        const val STRIKETHROUGH = 1 shl 3
+    }
+}
+
 data class TableRow(
     val cells: List<TableCell>
 )
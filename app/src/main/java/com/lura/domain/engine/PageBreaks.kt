@@ -0,0 +1,56 @@
+package com.lura.domain.engine
+
+/**
+ * The part of one chapter element that lands on a page.
+ *
+ * For text, [start] and [end] are character offsets into the element's styled text and
+ * [startLine] is the first laid out line. For tables they are the range of rows. Images always
+ * appear whole.
+ */
+data class PageSlice(
+    val elementIndex: Int,
+    val start: Int = 0,
+    val end: Int = 0,
+    val startLine: Int = 0
+)
+
+/**
+ * Page breaks of a whole book for one set of layout parameters: for every chapter, its pages,
+ * each a list of [PageSlice]s in reading order.
+ */
+typealias BookPageBreaks = List<List<List<PageSlice>>>
+
+/**
+ * A reading position that does not depend on layout: a character offset within one element of
+ * one chapter. For tables the offset is a row, for images it is always 0, matching [PageSlice.start].
+ */
+data class TextLocator(
+    val chapterIndex: Int,
+    val elementIndex: Int,
+    val charOffset: Int
+)
+
+/**
+ * Index of the page in [chapterPages] that shows the position ([elementIndex], [offset]): the last
+ * page starting at or before it. Pages are in reading order, so this is a binary search over their
+ * first slices.
+ */
+fun pageContaining(chapterPages: List<List<PageSlice>>, elementIndex: Int, offset: Int): Int {
+    var low = 0
+    var high = chapterPages.size - 1
+    var found = 0
+    while (low <= high) {
+        val mid = (low + high) ushr 1
+        val first = chapterPages[mid].firstOrNull()
+        val startsAtOrBefore = first == null ||
+            first.elementIndex < elementIndex ||
+            (first.elementIndex == elementIndex && first.start <= offset)
+        if (startsAtOrBefore) {
+            found = mid
+            low = mid + 1
+        } else {
+            high = mid - 1
+        }
+    }
+    return found
+}
@@ -1,179 +1,344 @@
 package com.lura.domain.engine
 
 import androidx.compose.ui.text.AnnotatedString
-import androidx.compose.ui.text.TextMeasurer
-import androidx.compose.ui.text.TextStyle
-import androidx.compose.ui.unit.Constraints
-import androidx.compose.ui.unit.Density
-import androidx.compose.ui.unit.dp
-
-data class Page(
-    val chapterIndex: Int,
-    val pageIndexInChapter: Int,
-    val elements: List<ReaderElement>
+
+// Internal representation for paginated content to preserve styles and track source position
+sealed class InternalElement {
+    data class Text(
+        val content: AnnotatedString,
+        val style: ReaderTextStyle,
+        val originalElementIndex: Int,
+        val startLine: Int = 0,
+        val startOffset: Int = 0 // Character offset of [content] in the whole element
+    ) : InternalElement()
+
+    data class Image(
+        val element: ReaderElement.Image,
+        val originalElementIndex: Int
+    ) : InternalElement()
+
+    data class Table(
+        val element: ReaderElement.Table,
+        val originalElementIndex: Int,
+        val startRow: Int = 0 // Index of the first of [element]'s rows in the whole table
+    ) : InternalElement()
+}
+
+data class PageContent(
+    val elements: List<Pair<Int, InternalElement>>,
+    val isTitle: Boolean = false
 )
 
-class Paginator {
+/**
+ * The line metrics of one laid out paragraph: everything page splitting needs from a text layout,
+ * without holding on to the layout or the text itself.
+ */
+class MeasuredParagraph(
+    private val lineStarts: IntArray,
+    private val lineEnds: IntArray,
+    private val lineTops: FloatArray,
+    private val lineBottoms: FloatArray
+) {
+    val lineCount: Int
+        get() = lineStarts.size
+
+    fun getLineStart(lineIndex: Int): Int = lineStarts[lineIndex]
+    fun getLineEnd(lineIndex: Int): Int = lineEnds[lineIndex]
+    fun getLineTop(lineIndex: Int): Float = lineTops[lineIndex]
+    fun getLineBottom(lineIndex: Int): Float = lineBottoms[lineIndex]
+
+    /** The line at [vertical], clamped to the first and last line like a text layout's own lookup. */
+    fun getLineForVerticalPosition(vertical: Float): Int {
+        var low = 0
+        var high = lineCount - 1
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (lineBottoms[mid] <= vertical) low = mid + 1 else high = mid
+        }
+        return low
+    }
+}
+
+/**
+ * Styles and measures text and table cells for the [Paginator]. The reader backs this with
+ * Compose's text measurer; anything that can break text into lines at the page width will do.
+ *
+ * Called from several chapters' layouts at once, so implementations must be thread safe.
+ */
+interface ParagraphMeasurer {
+    /** The styled text of [element], as it is drawn. */
+    fun styledText(chapterIndex: Int, elementIndex: Int, element: ReaderElement.Text): AnnotatedString
 
     /**
-     * Splits a list of ReaderElements into Pages that fit within the given constraints.
+     * Breaks [element]'s styled text into lines at the page width. Offsets in the result index
+     * into [styledText].
      */
-    fun paginate(
-        chapterIndex: Int,
-        elements: List<ReaderElement>,
-        textMeasurer: TextMeasurer,
-        constraints: Constraints,
-        bodyStyle: TextStyle,
-        titleStyle: TextStyle,
-        headingStyle: TextStyle,
-        density: Density,
-        availableHeight: Int
-    ): List<Page> {
-        val pages = mutableListOf<Page>()
-        var currentPageElements = mutableListOf<ReaderElement>()
-        var currentHeight = 0
-        
-        // Helper to finalize current page
+    fun measure(chapterIndex: Int, elementIndex: Int, element: ReaderElement.Text): MeasuredParagraph
+
+    /**
+     * Height of the content of cell [cellIndex] in row [rowIndex] of the table at [elementIndex],
+     * laid out [widthPx] wide.
+     */
+    fun measureTableCell(chapterIndex: Int, elementIndex: Int, rowIndex: Int, cellIndex: Int, cell: TableCell, widthPx: Int): Float
+}
+
+/**
+ * Page geometry, in pixels.
+ */
+data class PageLayout(
+    val contentWidthPx: Int,
+    val contentHeightPx: Float,
+    val elementSpacingPx: Float,
+    val tablePaddingPx: Float = 0f, // Above and below a table, together
+    val tableCellPaddingPx: Float = 0f, // Around the content of a table cell, on each side
+    val tableDividerPx: Float = 0f, // Between two table rows
+    val imagePaddingPx: Float = 0f, // Above and below an inline image, together
+    val imageCaptionHeightPx: Float = 0f // A one line caption including its padding
+) {
+    /**
+     * Height of the picture of an inline image: its own pixel size, shrunk to fit the text width
+     * and a page. Null while the image's size is unknown.
+     */
+    fun inlineImageHeightPx(image: ReaderElement.Image): Float? {
+        if (image.width <= 0 || image.height <= 0) return null
+        val scale = minOf(1f, contentWidthPx.toFloat() / image.width)
+        val maxHeight = (contentHeightPx - inlineImageDecorationPx(image)).coerceAtLeast(0f)
+        return (image.height * scale).coerceAtMost(maxHeight)
+    }
+
+    /** Space an inline image takes besides its picture: padding and caption. */
+    fun inlineImageDecorationPx(image: ReaderElement.Image): Float {
+        return imagePaddingPx + if (image.caption != null) imageCaptionHeightPx else 0f
+    }
+}
+
+/**
+ * Splits chapters into pages.
+ *
+ * Text is split between lines, tables between rows, and images are kept whole. The result only
+ * depends on the [measurer] and the [layout], so a chapter can be laid out on any thread.
+ */
+class Paginator(
+    private val measurer: ParagraphMeasurer,
+    private val layout: PageLayout
+) {
+
+    fun layoutChapter(chapterIndex: Int, chapter: Chapter): List<PageContent> {
+        val availableContentHeightPx = layout.contentHeightPx
+        val spacingPx = layout.elementSpacingPx
+        val chapterPages = mutableListOf<PageContent>()
+        val currentPageElements = mutableListOf<Pair<Int, InternalElement>>()
+        var currentHeightPx = 0f
+
         fun flushPage() {
             if (currentPageElements.isNotEmpty()) {
-                pages.add(Page(chapterIndex, pages.size, ArrayList(currentPageElements)))
+                chapterPages.add(PageContent(ArrayList(currentPageElements)))
                 currentPageElements.clear()
-                currentHeight = 0
+                currentHeightPx = 0f
             }
         }
 
-        // We assume some padding between elements
-        val elementSpacing = with(density) { 16.dp.toPx().toInt() }
-
-        for (element in elements) {
+        chapter.elements.forEachIndexed { elementIndex, element ->
             when (element) {
                 is ReaderElement.Text -> {
-                    val style = when (element.style) {
-                        ReaderTextStyle.Title -> titleStyle
-                        ReaderTextStyle.Heading -> headingStyle
-                        else -> bodyStyle
-                    }
+                    val measureResult = measurer.measure(chapterIndex, elementIndex, element)
+                    val fullAnnotatedString = measurer.styledText(chapterIndex, elementIndex, element)
 
-                    // Measure the full text
-                    val measured = textMeasurer.measure(
-                        text = AnnotatedString(element.content),
-                        style = style,
-                        constraints = constraints
-                    )
-
-                    // Does it fit entirely?
-                    if (currentHeight + measured.size.height + elementSpacing <= availableHeight) {
-                        // Yes, add it
-                        currentPageElements.add(element)
-                        currentHeight += measured.size.height + elementSpacing
-                    } else {
-                        // No. We need to split.
-                        // Calculate how much duplicate space we have
-                        var remainingText = element.content
-                        
-                        while (remainingText.isNotEmpty()) {
-                            val spaceOnPage = availableHeight - currentHeight
-                            
-                            // If practically no space, flush first
-                            if (spaceOnPage < style.fontSize.value * density.density) { // minimal line height check
-                                flushPage()
-                                continue
-                            }
-                            
-                            // Measure how many lines fit in 'spaceOnPage'
-                            // This is tricky without StaticLayout.getLineForVertical...
-                            // Compose TextMeasurer returns a TextLayoutResult which has getLineForVertical
-                            
-                            val result = textMeasurer.measure(
-                                text = AnnotatedString(remainingText),
-                                style = style,
-                                constraints = constraints
+                    var currentLine = 0
+                    while (currentLine < measureResult.lineCount) {
+                        val spaceLeft = availableContentHeightPx - currentHeightPx - spacingPx
+
+                        if (spaceLeft < 10f && currentPageElements.isNotEmpty()) {
+                            flushPage()
+                            continue
+                        }
+
+                        val baselineTop = if (currentLine > 0) measureResult.getLineTop(currentLine) else 0f
+                        val targetBottom = baselineTop + spaceLeft
+                        val lastPossibleLine = measureResult.getLineForVerticalPosition(targetBottom).coerceAtMost(measureResult.lineCount - 1)
+
+                        var lineToTake = if (measureResult.getLineBottom(lastPossibleLine) - baselineTop <= spaceLeft) {
+                            lastPossibleLine
+                        } else {
+                            (lastPossibleLine - 1).coerceAtLeast(currentLine)
+                        }
+
+                        if (lineToTake < currentLine && currentPageElements.isEmpty()) {
+                            lineToTake = currentLine
+                        }
+
+                        if (lineToTake >= currentLine) {
+                            val tookText = fullAnnotatedString.subSequence(
+                                measureResult.getLineStart(currentLine),
+                                measureResult.getLineEnd(lineToTake)
                             )
-                            
-                            if (result.size.height <= spaceOnPage) {
-                                // Fits now (new page or remaining space)
-                                currentPageElements.add(ReaderElement.Text(remainingText, element.style))
-                                currentHeight += result.size.height + elementSpacing
-                                remainingText = ""
-                            } else {
-                                // Calculate how many lines fit in available space
-                                // Use getLineForOffset approach instead
-                                var lastFittingLine = -1
-                                for (line in 0 until result.lineCount) {
-                                    if (result.getLineBottom(line).toInt() <= spaceOnPage) {
-                                        lastFittingLine = line
-                                    } else {
-                                        break
-                                    }
-                                }
-                                
-                                if (lastFittingLine < 0) {
-                                    // Even the first line doesn't fit
-                                    flushPage()
-                                    continue
-                                }
-                                
-                                val splitIndex = result.getLineEnd(lastFittingLine)
-                                
-                                if (splitIndex == 0 || splitIndex >= remainingText.length) {
-                                    // Can't split, just add whole thing to new page
-                                    flushPage()
-                                    currentPageElements.add(ReaderElement.Text(remainingText, element.style))
-                                    val remeasured = textMeasurer.measure(
-                                        text = AnnotatedString(remainingText),
-                                        style = style,
-                                        constraints = constraints
-                                    )
-                                    currentHeight += remeasured.size.height + elementSpacing
-                                    remainingText = ""
-                                } else {
-                                    val textOnPage = remainingText.substring(0, splitIndex)
-                                    val textNext = remainingText.substring(splitIndex)
-                                    
-                                    currentPageElements.add(ReaderElement.Text(textOnPage, element.style))
-                                    flushPage()
-                                    
-                                    remainingText = textNext.trimStart()
-                                }
+
+                            if (tookText.isNotEmpty()) {
+                                currentPageElements.add(chapterIndex to InternalElement.Text(tookText, element.style, elementIndex, currentLine, measureResult.getLineStart(currentLine)))
+                                currentHeightPx += (measureResult.getLineBottom(lineToTake) - baselineTop) + spacingPx
                             }
+
+                            currentLine = lineToTake + 1
+                            if (currentLine < measureResult.lineCount) {
+                                flushPage()
+                            }
+                        } else {
+                            flushPage()
                         }
                     }
                 }
                 is ReaderElement.Image -> {
-                    // Image logic: Assume generous height or fixed aspect ratio.
-                    // For MVP, if it doesn't fit, push to next page.
-                    // If it's taller than a full page, scale it to fit.
-                    
-                    // Estimate height (stub 300dp) or use aspect ratio if we parsed it.
-                    // Currently ReaderElement doesn't have dimensions.
-                    // We'll treat it as taking 40% of screen or available space.
-                    
-                    val estimatedHeight = availableHeight / 2 // Rough guess
-                    
-                    if (currentHeight + estimatedHeight > availableHeight) {
+                    if (element.isFullPage) {
+                        if (currentPageElements.isNotEmpty()) flushPage()
+                        currentPageElements.add(chapterIndex to InternalElement.Image(element, elementIndex))
                         flushPage()
+                    } else {
+                        // Images whose size could not be read keep the old rough estimate
+                        val imageHeightPx = layout.inlineImageHeightPx(element)
+                            ?.let { it + layout.inlineImageDecorationPx(element) }
+                            ?: (availableContentHeightPx * 0.4f)
+                        if (currentHeightPx + imageHeightPx > availableContentHeightPx && currentPageElements.isNotEmpty()) {
+                            flushPage()
+                        }
+                        currentPageElements.add(chapterIndex to InternalElement.Image(element, elementIndex))
+                        currentHeightPx += imageHeightPx + spacingPx
                     }
-                    
-                    currentPageElements.add(element)
-                    currentHeight += estimatedHeight + elementSpacing
                 }
                 is ReaderElement.Table -> {
-                    // Estimate table height based on rows
-                    val rowHeight = with(density) { 32.dp.toPx().toInt() } // Approximate row height
-                    val estimatedTableHeight = element.rows.size * rowHeight
-                    
-                    if (currentHeight + estimatedTableHeight + elementSpacing > availableHeight && currentPageElements.isNotEmpty()) {
-                        flushPage()
+                    var remainingRows = element.rows
+                    var startRow = 0
+
+                    while (remainingRows.isNotEmpty()) {
+                        val rowsToTake = mutableListOf<TableRow>()
+                        var tableHeight = layout.tablePaddingPx
+
+                        for (row in remainingRows) {
+                            val rowIndex = startRow + rowsToTake.size
+                            // Rows after the first on a page are preceded by a divider
+                            val rowHeightPx = tableRowHeightPx(chapterIndex, elementIndex, rowIndex, row) +
+                                if (rowsToTake.isNotEmpty()) layout.tableDividerPx else 0f
+                            if (currentHeightPx + tableHeight + rowHeightPx <= availableContentHeightPx) {
+                                rowsToTake.add(row)
+                                tableHeight += rowHeightPx
+                            } else {
+                                break
+                            }
+                        }
+
+                        if (rowsToTake.isNotEmpty()) {
+                            currentPageElements.add(chapterIndex to InternalElement.Table(ReaderElement.Table(rowsToTake), elementIndex, startRow))
+                            currentHeightPx += tableHeight + spacingPx
+                            remainingRows = remainingRows.drop(rowsToTake.size)
+                            startRow += rowsToTake.size
+                            if (remainingRows.isNotEmpty()) flushPage()
+                        } else {
+                            if (currentPageElements.isNotEmpty()) flushPage()
+                            else {
+                                currentPageElements.add(chapterIndex to InternalElement.Table(ReaderElement.Table(listOf(remainingRows[0])), elementIndex, startRow))
+                                remainingRows = remainingRows.drop(1)
+                                startRow += 1
+                                flushPage()
+                            }
+                        }
                     }
-                    
-                    currentPageElements.add(element)
-                    currentHeight += estimatedTableHeight + elementSpacing
                 }
             }
         }
-        
         flushPage()
-        
-        return pages
+        return chapterPages
+    }
+
+    /**
+     * Height of a table row as drawn: its tallest cell, with the cells sharing the text width evenly.
+     */
+    private fun tableRowHeightPx(chapterIndex: Int, elementIndex: Int, rowIndex: Int, row: TableRow): Float {
+        if (row.cells.isEmpty()) return 0f
+        val cellPaddingPx = 2 * layout.tableCellPaddingPx
+        val cellWidthPx = (layout.contentWidthPx / row.cells.size - cellPaddingPx).toInt().coerceAtLeast(1)
+        val tallestCellPx = row.cells.indices.maxOf { cellIndex ->
+            measurer.measureTableCell(chapterIndex, elementIndex, rowIndex, cellIndex, row.cells[cellIndex], cellWidthPx)
+        }
+        return tallestCellPx + cellPaddingPx
+    }
+
+    /**
+     * Rebuilds a chapter's pages from stored [breaks] without measuring, or returns null if they
+     * no longer match the chapter.
+     */
+    fun restoreChapter(chapterIndex: Int, chapter: Chapter, breaks: List<List<PageSlice>>): List<PageContent>? {
+        val styledText = HashMap<Int, AnnotatedString>()
+        return breaks.map { slices ->
+            PageContent(slices.map { slice ->
+                val element = chapter.elements.getOrNull(slice.elementIndex) ?: return null
+                chapterIndex to when (element) {
+                    is ReaderElement.Text -> {
+                        val fullAnnotatedString = styledText.getOrPut(slice.elementIndex) {
+                            measurer.styledText(chapterIndex, slice.elementIndex, element)
+                        }
+                        if (slice.start > slice.end || slice.end > fullAnnotatedString.length) return null
+                        InternalElement.Text(fullAnnotatedString.subSequence(slice.start, slice.end), element.style, slice.elementIndex, slice.startLine, slice.start)
+                    }
+                    is ReaderElement.Image -> InternalElement.Image(element, slice.elementIndex)
+                    is ReaderElement.Table -> {
+                        if (slice.start > slice.end || slice.end > element.rows.size) return null
+                        InternalElement.Table(ReaderElement.Table(element.rows.subList(slice.start, slice.end)), slice.elementIndex, slice.start)
+                    }
+                }
+            })
+        }
+    }
+}
+
+/**
+ * The layout-independent form of a chapter's pages, as stored in the page break cache.
+ */
+fun pageBreaksOf(chapterPages: List<PageContent>): List<List<PageSlice>> {
+    return chapterPages.map { page ->
+        page.elements.map { (_, element) ->
+            when (element) {
+                is InternalElement.Text -> PageSlice(
+                    element.originalElementIndex, element.startOffset, element.startOffset + element.content.length, element.startLine
+                )
+                is InternalElement.Image -> PageSlice(element.originalElementIndex)
+                is InternalElement.Table -> PageSlice(
+                    element.originalElementIndex, element.startRow, element.startRow + element.element.rows.size
+                )
+            }
+        }
+    }
+}
+
+/**
+ * Where [page] starts, or null for an empty page.
+ */
+fun pageLocatorOf(page: PageContent): TextLocator? {
+    val (chapterIndex, element) = page.elements.firstOrNull() ?: return null
+    return when (element) {
+        is InternalElement.Text -> TextLocator(chapterIndex, element.originalElementIndex, element.startOffset)
+        is InternalElement.Image -> TextLocator(chapterIndex, element.originalElementIndex, 0)
+        is InternalElement.Table -> TextLocator(chapterIndex, element.originalElementIndex, element.startRow)
+    }
+}
+
+/**
+ * Index in [pages] of the page showing [locator]: the last page starting at or before it. Pages
+ * are in reading order, so this is a binary search. When [locator]'s chapter has not been laid
+ * out, the first page after it is returned instead, -1 if there is none.
+ */
+fun pageIndexOf(pages: List<PageContent>, locator: TextLocator): Int {
+    var low = 0
+    var high = pages.size
+    while (low < high) {
+        val mid = (low + high) ushr 1
+        // Empty pages count as starting at or before, like in pageContaining
+        val start = pageLocatorOf(pages[mid])
+        val startsAtOrBefore = start == null ||
+            start.chapterIndex < locator.chapterIndex ||
+            (start.chapterIndex == locator.chapterIndex && start.elementIndex < locator.elementIndex) ||
+            (start.chapterIndex == locator.chapterIndex && start.elementIndex == locator.elementIndex && start.charOffset <= locator.charOffset)
+        if (startsAtOrBefore) low = mid + 1 else high = mid
     }
+    val containing = low - 1
+    if (containing >= 0 && pages[containing].elements.firstOrNull()?.first == locator.chapterIndex) return containing
+    return if (low < pages.size) low else -1
 }
@@ -0,0 +1,65 @@
+package com.lura.domain.engine
+
+/**
+ * Per-word Pulse parameters that do not depend on the reading speed, computed once for a whole
+ * book when its word index is built.
+ *
+ * A word is shown for `(60000 / wpm + pause) * scale` milliseconds, so a speed change only changes
+ * the base term and nothing has to be recomputed per word.
+ */
+class PulseWordTiming private constructor(
+    private val pivots: ByteArray,
+    private val pausesMs: ShortArray,
+    private val slowWords: java.util.BitSet
+) {
+    val size: Int
+        get() = pivots.size
+
+    /** Index of the character to center (ORP). */
+    fun pivotAt(index: Int): Int = pivots[index].toInt()
+
+    fun delayMs(index: Int, wpm: Int): Long {
+        val delay = (60000.0 / wpm).toLong().toDouble() + pausesMs[index]
+        return (if (slowWords[index]) delay * SLOW_WORD_SCALE else delay).toLong()
+    }
+
+    fun delayNanos(index: Int, wpm: Int): Long = delayMs(index, wpm) * 1_000_000L
+
+    companion object {
+        private const val COMMA_PAUSE_MS = 200
+        private const val SENTENCE_PAUSE_MS = 400
+        private const val SLOW_WORD_LENGTH = 8
+        private const val SLOW_WORD_SCALE = 1.1
+
+        fun build(words: PulseWordSource): PulseWordTiming {
+            val pivots = ByteArray(words.size)
+            val pausesMs = ShortArray(words.size)
+            val slowWords = java.util.BitSet(words.size)
+
+            for (i in 0 until words.size) {
+                val word = words.wordAt(i)
+                val length = word.trim().length
+
+                // ORP Calculation (Simplified)
+                // Usually 35% into the word for optimal recognition, slightly left of center
+                pivots[i] = when {
+                    length <= 1 -> 0
+                    length in 2..5 -> 1
+                    length in 6..9 -> 2
+                    length in 10..13 -> 3
+                    else -> 4
+                }.coerceAtMost(length - 1).toByte()
+
+                // Punctuation
+                var pause = 0
+                if (word.contains(",")) pause += COMMA_PAUSE_MS
+                if (word.contains(".") || word.contains("?") || word.contains("!")) pause += SENTENCE_PAUSE_MS
+                pausesMs[i] = pause.toShort()
+
+                // Complexity Scaling
+                if (length > SLOW_WORD_LENGTH) slowWords.set(i)
+            }
+            return PulseWordTiming(pivots, pausesMs, slowWords)
+        }
+    }
+}
@@ -14,3 +14,12 @@ data class PulseWordInfo(
     val globalIndex: Int,
     val sentenceIndex: Int  // Which sentence this word belongs to (global across entire book)
 )
+
+/**
+ * Random access to already tokenized words, in reading order.
+ */
+interface PulseWordSource {
+    val size: Int
+
+    fun wordAt(index: Int): String
+}
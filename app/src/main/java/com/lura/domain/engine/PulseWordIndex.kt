@@ -0,0 +1,334 @@
+package com.lura.domain.engine
+
+import java.io.DataInput
+import java.io.DataOutput
+import java.nio.ByteBuffer
+
+/**
+ * Every word of a book in reading order, stored column-wise.
+ *
+ * The word texts share one char buffer and each property lives in its own primitive array, so a
+ * book of a few hundred thousand words is a handful of arrays instead of an object per word.
+ * Words are addressed by their global index.
+ *
+ * Sentences and elements each cover a contiguous run of words. Their ranges are derived from the
+ * columns when the index is created, so the part of a sentence inside a paragraph is found
+ * without looking at the words themselves.
+ */
+class PulseWordIndex private constructor(
+    private val chars: CharArray,
+    // Start of word i in chars is wordStarts[i], its end wordStarts[i + 1]
+    private val wordStarts: IntArray,
+    private val chapters: IntArray,
+    private val elements: IntArray,
+    private val offsetsInElement: IntArray,
+    private val charOffsets: IntArray,
+    private val sentences: IntArray,
+    override val size: Int
+) : PulseWordSource {
+
+    // First word of sentence s is sentenceStarts[s], its end sentenceStarts[s + 1]
+    private val sentenceStarts: IntArray
+
+    // Elements that have words, as (chapter shl 32 | element) in reading order, and their first words
+    private val elementKeys: LongArray
+    private val elementStarts: IntArray
+
+    init {
+        val sentenceCount = if (size == 0) 0 else sentences[size - 1] + 1
+        sentenceStarts = IntArray(sentenceCount + 1)
+        sentenceStarts[sentenceCount] = size
+
+        var elementCount = 0
+        for (i in 0 until size) {
+            if (i == 0 || elements[i] != elements[i - 1] || chapters[i] != chapters[i - 1]) elementCount++
+        }
+        elementKeys = LongArray(elementCount)
+        elementStarts = IntArray(elementCount + 1)
+        elementStarts[elementCount] = size
+
+        var element = 0
+        for (i in 0 until size) {
+            // Sentence numbers go up by at most one per word
+            if (i == 0 || sentences[i] != sentences[i - 1]) sentenceStarts[sentences[i]] = i
+            if (i == 0 || elements[i] != elements[i - 1] || chapters[i] != chapters[i - 1]) {
+                elementKeys[element] = elementKey(chapters[i], elements[i])
+                elementStarts[element] = i
+                element++
+            }
+        }
+    }
+
+    override fun wordAt(index: Int): String = String(chars, wordStarts[index], wordStarts[index + 1] - wordStarts[index])
+
+    fun chapterAt(index: Int): Int = chapters[index]
+
+    fun elementAt(index: Int): Int = elements[index]
+
+    /** Position of the word among the words of its element. */
+    fun offsetInElementAt(index: Int): Int = offsetsInElement[index]
+
+    /** Where the word starts in its element's text, it ends [wordLength] chars later. */
+    fun charOffsetAt(index: Int): Int = charOffsets[index]
+
+    fun wordLength(index: Int): Int = wordStarts[index + 1] - wordStarts[index]
+
+    /** Sentence the word belongs to, counted across the whole book. */
+    fun sentenceAt(index: Int): Int = sentences[index]
+
+    val sentenceCount: Int
+        get() = sentenceStarts.size - 1
+
+    /** Words of sentence [sentenceIndex]. */
+    fun sentenceWordRange(sentenceIndex: Int): IntRange {
+        if (sentenceIndex !in 0 until sentenceCount) return IntRange.EMPTY
+        return sentenceStarts[sentenceIndex] until sentenceStarts[sentenceIndex + 1]
+    }
+
+    /** Words of the given element, empty if it has none. */
+    fun elementWordRange(chapterIndex: Int, elementIndex: Int): IntRange {
+        val element = elementKeys.binarySearch(elementKey(chapterIndex, elementIndex))
+        if (element < 0) return IntRange.EMPTY
+        return elementStarts[element] until elementStarts[element + 1]
+    }
+
+    /**
+     * Chars of the element whose words are [elementWords] (see [elementWordRange]) that belong to
+     * sentence [sentenceIndex], from the start of its first word there to the end of its last, or
+     * null if the sentence is not in the element.
+     */
+    fun sentenceCharRange(sentenceIndex: Int, elementWords: IntRange): IntRange? {
+        val sentenceWords = sentenceWordRange(sentenceIndex)
+        val first = maxOf(sentenceWords.first, elementWords.first)
+        val last = minOf(sentenceWords.last, elementWords.last)
+        if (first > last) return null
+        return charOffsets[first] until charOffsets[last] + wordLength(last)
+    }
+
+    fun isEmpty(): Boolean = size == 0
+
+    fun isNotEmpty(): Boolean = size != 0
+
+    /** All properties of one word. Allocates, meant for the occasional lookup. */
+    fun infoAt(index: Int): PulseWordInfo = PulseWordInfo(
+        text = wordAt(index),
+        chapterIndex = chapters[index],
+        elementIndex = elements[index],
+        offsetInElement = offsetsInElement[index],
+        globalIndex = index,
+        sentenceIndex = sentences[index]
+    )
+
+    fun getOrNull(index: Int): PulseWordInfo? = if (index in 0 until size) infoAt(index) else null
+
+    /**
+     * The word at a text position: the word it falls in, or else the first word after it, which
+     * makes the start of a page or of a wordless element (an image, a table) map to the first word
+     * shown from there on. -1 past the last word. Words are ordered by position, so this is a
+     * binary search.
+     */
+    fun wordIndexAt(chapterIndex: Int, elementIndex: Int, charOffset: Int = 0): Int {
+        // First word starting after the position
+        var low = 0
+        var high = size
+        while (low < high) {
+            val mid = (low + high) ushr 1
+            if (compareTo(mid, chapterIndex, elementIndex, charOffset) <= 0) low = mid + 1 else high = mid
+        }
+        val before = low - 1
+        if (before >= 0 && chapters[before] == chapterIndex && elements[before] == elementIndex &&
+            charOffset < charOffsets[before] + wordLength(before)
+        ) {
+            return before
+        }
+        return if (low < size) low else -1
+    }
+
+    fun wordIndexAt(locator: TextLocator): Int = wordIndexAt(locator.chapterIndex, locator.elementIndex, locator.charOffset)
+
+    /** Where the word starts in the book. */
+    fun locatorOf(index: Int): TextLocator = TextLocator(chapters[index], elements[index], charOffsets[index])
+
+    // Orders word [index] against a position, by chapter, then element, then offset
+    private fun compareTo(index: Int, chapterIndex: Int, elementIndex: Int, charOffset: Int): Int = when {
+        chapters[index] != chapterIndex -> chapters[index].compareTo(chapterIndex)
+        elements[index] != elementIndex -> elements[index].compareTo(elementIndex)
+        else -> charOffsets[index].compareTo(charOffset)
+    }
+
+    /** Words of [chapterIndex], found by binary search since chapters only ever go up. */
+    fun chapterWordRange(chapterIndex: Int): IntRange {
+        val first = lowerBound(chapters, size, chapterIndex)
+        val end = lowerBound(chapters, size, chapterIndex + 1)
+        return first until end
+    }
+
+    class Builder(expectedWords: Int = 1024) {
+        private var chars = CharArray(expectedWords * 6)
+        private var charCount = 0
+        private var wordStarts = IntArray(expectedWords + 1)
+        private var chapters = IntArray(expectedWords)
+        private var elements = IntArray(expectedWords)
+        private var offsetsInElement = IntArray(expectedWords)
+        private var charOffsets = IntArray(expectedWords)
+        private var sentences = IntArray(expectedWords)
+        private var size = 0
+
+        val wordCount: Int
+            get() = size
+
+        /** Appends `text[start until end]` as the next word. */
+        fun add(text: CharSequence, start: Int, end: Int, chapterIndex: Int, elementIndex: Int, offsetInElement: Int, sentenceIndex: Int) {
+            if (size == chapters.size) {
+                val capacity = maxOf(size * 2, 16)
+                wordStarts = wordStarts.copyOf(capacity + 1)
+                chapters = chapters.copyOf(capacity)
+                elements = elements.copyOf(capacity)
+                offsetsInElement = offsetsInElement.copyOf(capacity)
+                charOffsets = charOffsets.copyOf(capacity)
+                sentences = sentences.copyOf(capacity)
+            }
+            val length = end - start
+            if (charCount + length > chars.size) {
+                chars = chars.copyOf(maxOf(chars.size * 2, charCount + length))
+            }
+            for (i in 0 until length) {
+                chars[charCount + i] = text[start + i]
+            }
+            wordStarts[size] = charCount
+            charCount += length
+            wordStarts[size + 1] = charCount
+            chapters[size] = chapterIndex
+            elements[size] = elementIndex
+            offsetsInElement[size] = offsetInElement
+            charOffsets[size] = start
+            sentences[size] = sentenceIndex
+            size++
+        }
+
+        /** Trims the arrays to size, the builder must not be used afterwards. */
+        fun build(): PulseWordIndex = PulseWordIndex(
+            chars = chars.copyOf(charCount),
+            wordStarts = wordStarts.copyOf(size + 1),
+            chapters = chapters.copyOf(size),
+            elements = elements.copyOf(size),
+            offsetsInElement = offsetsInElement.copyOf(size),
+            charOffsets = charOffsets.copyOf(size),
+            sentences = sentences.copyOf(size),
+            size = size
+        )
+    }
+
+    /** Writes the columns as they are, [readFrom] restores them without tokenizing again. */
+    fun writeTo(out: DataOutput) {
+        out.writeInt(size)
+        out.writeInt(chars.size)
+        val charBytes = ByteBuffer.allocate(chars.size * 2)
+        charBytes.asCharBuffer().put(chars)
+        out.write(charBytes.array())
+        listOf(wordStarts, chapters, elements, offsetsInElement, charOffsets, sentences).forEach { column ->
+            val bytes = ByteBuffer.allocate(column.size * 4)
+            bytes.asIntBuffer().put(column)
+            out.write(bytes.array())
+        }
+    }
+
+    companion object {
+        val EMPTY = Builder(0).build()
+
+        private fun elementKey(chapterIndex: Int, elementIndex: Int): Long =
+            (chapterIndex.toLong() shl 32) or (elementIndex.toLong() and 0xFFFFFFFFL)
+
+        // Common abbreviations that should NOT end a sentence
+        private val commonAbbreviations = setOf(
+            "Mr", "Mrs", "Ms", "Dr", "Prof", "Sr", "Jr",
+            "vs", "etc", "e.g", "i.e", "Inc", "Ltd", "Co"
+        )
+
+        /**
+         * Splits the text elements of every chapter into words, on the same separators as
+         * `Regex("\\s+")`, and numbers their sentences. Loads one chapter at a time.
+         */
+        suspend fun build(chapters: ChapterSource): PulseWordIndex {
+            val words = Builder()
+            var sentenceIndex = 0
+            for (chapterIndex in chapters.indices) {
+                chapters.load(chapterIndex).elements.forEachIndexed { elementIndex, element ->
+                    if (element is ReaderElement.Text) {
+                        val content = element.content
+                        var wordInElement = 0
+                        var i = 0
+                        while (i < content.length) {
+                            while (i < content.length && isWordSeparator(content[i])) i++
+                            if (i == content.length) break
+                            val start = i
+                            while (i < content.length && !isWordSeparator(content[i])) i++
+
+                            words.add(content, start, i, chapterIndex, elementIndex, wordInElement++, sentenceIndex)
+                            if (isSentenceEnd(content, start, i)) sentenceIndex++
+                        }
+                    }
+                }
+            }
+            return words.build()
+        }
+
+        fun readFrom(input: DataInput): PulseWordIndex {
+            val size = input.readInt()
+            val charBytes = ByteArray(input.readInt() * 2)
+            input.readFully(charBytes)
+            val chars = CharArray(charBytes.size / 2)
+            ByteBuffer.wrap(charBytes).asCharBuffer().get(chars)
+
+            fun readColumn(length: Int): IntArray {
+                val bytes = ByteArray(length * 4)
+                input.readFully(bytes)
+                return IntArray(length).also { ByteBuffer.wrap(bytes).asIntBuffer().get(it) }
+            }
+            return PulseWordIndex(
+                chars = chars,
+                wordStarts = readColumn(size + 1),
+                chapters = readColumn(size),
+                elements = readColumn(size),
+                offsetsInElement = readColumn(size),
+                charOffsets = readColumn(size),
+                sentences = readColumn(size),
+                size = size
+            )
+        }
+
+        private fun isWordSeparator(c: Char): Boolean = c == ' ' || c in '\t'..'\r'
+
+        /**
+         * Determines if the word `text[start until end]` ends a sentence.
+         * Checks for sentence-ending punctuation while avoiding false positives from abbreviations.
+         */
+        private fun isSentenceEnd(text: String, start: Int, end: Int): Boolean {
+            // Check if word ends with sentence-ending punctuation
+            val last = text[end - 1]
+            if (last != '.' && last != '!' && last != '?') return false
+
+            // Remove punctuation to get the base word
+            var baseEnd = end
+            while (baseEnd > start && text[baseEnd - 1].let { it == '.' || it == '!' || it == '?' }) baseEnd--
+            val baseLength = baseEnd - start
+
+            // Don't end if it looks like an abbreviation (single letter followed by period)
+            if (baseLength == 1 && last == '.') return false
+
+            // Don't end sentence if it's a common abbreviation
+            return baseLength > 4 || !commonAbbreviations.contains(text.substring(start, baseEnd))
+        }
+
+        // First position in the sorted values[0 until size] that is not below key
+        private fun lowerBound(values: IntArray, size: Int, key: Int): Int {
+            var low = 0
+            var high = size
+            while (low < high) {
+                val mid = (low + high) ushr 1
+                if (values[mid] < key) low = mid + 1 else high = mid
+            }
+            return low
+        }
+    }
+}
@@ -1,56 +1,217 @@
 package com.lura.domain.engine
 
-import kotlinx.coroutines.delay
+import kotlinx.coroutines.channels.Channel
 import kotlinx.coroutines.flow.Flow
 import kotlinx.coroutines.flow.flow
+import kotlinx.coroutines.withTimeoutOrNull
+import java.util.concurrent.atomic.AtomicInteger
 import javax.inject.Inject
 import kotlin.math.roundToInt
 
-class RsvpEngine @Inject constructor() {
+/**
+ * The display's frame timing. [awaitFrame] suspends until the next frame and returns its time in
+ * the [System.nanoTime] time base.
+ */
+fun interface PulseFrameClock {
+    suspend fun awaitFrame(): Long
+}
+
+/**
+ * A running Pulse: the words, their precomputed timing, and the controls that may change while the
+ * engine is reading. [setWpm] and [seekTo] can be called from any thread and take effect on the
+ * next display frame, without restarting the engine.
+ */
+class PulseSession(
+    val words: PulseWordSource,
+    val timing: PulseWordTiming,
+    startWordIndex: Int,
+    wpm: Int
+) {
+    @Volatile
+    var wpm: Int = wpm
+        private set
+
+    private val pendingSeek = AtomicInteger(startWordIndex.coerceIn(0, (words.size - 1).coerceAtLeast(0)))
+
+    // Wakes the engine up while it sleeps until the next deadline
+    internal val changes = Channel<Unit>(Channel.CONFLATED)
+
+    fun setWpm(wpm: Int) {
+        this.wpm = wpm
+        changes.trySend(Unit)
+    }
+
+    /** Shows [wordIndex] right away and continues from there. */
+    fun seekTo(wordIndex: Int) {
+        pendingSeek.set(wordIndex.coerceIn(0, (words.size - 1).coerceAtLeast(0)))
+        changes.trySend(Unit)
+    }
+
+    internal fun takeSeek(): Int? = pendingSeek.getAndSet(NO_SEEK).takeIf { it != NO_SEEK }
+
+    private companion object {
+        const val NO_SEEK = -1
+    }
+}
+
+class RsvpEngine @Inject constructor(
+    private val frameClock: PulseFrameClock
+) {
+
+    /**
+     * Emits the words of [session] from its start index on, each after the previous one's delay.
+     * Event indices are indices into the session's words.
+     *
+     * Every word is due at a fixed offset from the start, not at a delay after the previous one
+     * was handled, so time spent by the collector never accumulates. Words are swapped on the
+     * display frame closest to when they are due; a word shown late makes the next one shorter.
+     * After a stall longer than [MAX_CATCH_UP_NANOS] the schedule restarts from the current frame
+     * instead of rushing through the words that were missed.
+     *
+     * A speed change rescales what is left of the word on screen and every deadline after it; a
+     * seek shows the target word on the next frame. Either one restarts the rate statistics.
+     */
+    fun startPulse(session: PulseSession): Flow<PulseEvent> = flow {
+        val words = session.words
+        val timing = session.timing
+        var wpm = session.wpm
+        var index = 0
+
+        var frameTime = frameClock.awaitFrame()
+        var frameInterval = DEFAULT_FRAME_INTERVAL_NANOS
+        // Word deadlines are offsets from the anchor, which only moves after a stall or a seek
+        var anchor = frameTime
+        var dueOffset = 0L
+        var shownIndex = -1
+
+        // Rate statistics, restarted by the next word shown whenever the count is negative
+        var statsCount = -1
+        var statsStartTime = 0L
+        var statsStartOffset = 0L
+
+        while (true) {
+            val seek = session.takeSeek()
+            if (seek != null) {
+                index = seek
+                anchor = System.nanoTime()
+                dueOffset = 0L
+                statsCount = -1
+            }
 
-    fun startPulse(text: String, startWordIndex: Int = 0, wpm: Int = 300): Flow<PulseEvent> = flow {
-        val words = text.split(Regex("\\s+")).filter { it.isNotEmpty() }
-        val baseDelay = (60000.0 / wpm).toLong()
+            val newWpm = session.wpm
+            if (newWpm != wpm) {
+                if (shownIndex >= 0) {
+                    // Stretch or shrink what is left of the current word, later words follow
+                    val now = System.nanoTime()
+                    val remaining = (anchor + dueOffset - now).coerceAtLeast(0L)
+                    val scale = timing.delayNanos(shownIndex, newWpm).toDouble() / timing.delayNanos(shownIndex, wpm)
+                    dueOffset = now - anchor + (remaining * scale).toLong()
+                }
+                wpm = newWpm
+                statsCount = -1
+            }
 
-        for (i in startWordIndex until words.size) {
-            val word = words[i]
-            val pulseWord = calculatePulseWord(word, baseDelay)
-            
-            emit(PulseEvent.Word(pulseWord, i))
-            delay(pulseWord.delayMs)
+            val deadline = anchor + dueOffset
+            if (index >= words.size) {
+                // The last word stays up for its full duration too
+                if (awaitChange(session, deadline - System.nanoTime())) continue
+                emit(PulseEvent.Finished)
+                return@flow
+            }
+
+            val shown = awaitFrameNear(deadline, frameTime, frameInterval, session) ?: continue
+            frameTime = shown.first
+            frameInterval = shown.second
+
+            val lateness = frameTime - deadline
+            if (lateness > MAX_CATCH_UP_NANOS) anchor += lateness
+
+            if (statsCount < 0) {
+                statsCount = 0
+                statsStartTime = frameTime
+                statsStartOffset = dueOffset
+            }
+            // Rates over the words completed so far: as shown, and as scheduled
+            val actualWpm = wordsPerMinute(statsCount, frameTime - statsStartTime)
+            val scheduledWpm = wordsPerMinute(statsCount, dueOffset - statsStartOffset)
+            statsCount++
+
+            val delayMs = timing.delayMs(index, wpm)
+            emit(PulseEvent.Word(PulseWord(words.wordAt(index), timing.pivotAt(index), delayMs), index, actualWpm, scheduledWpm))
+            shownIndex = index
+            dueOffset += delayMs * NANOS_PER_MILLI
+            index++
         }
-        emit(PulseEvent.Finished)
-    }
-
-    private fun calculatePulseWord(word: String, baseDelay: Long): PulseWord {
-        val cleanWord = word.trim()
-        val length = cleanWord.length
-        
-        // ORP Calculation (Simplified)
-        // Usually 35% into the word for optimal recognition, slightly left of center
-        val pivotIndex = when {
-            length <= 1 -> 0
-            length in 2..5 -> 1
-            length in 6..9 -> 2
-            length in 10..13 -> 3
-            else -> 4
-        }.coerceAtMost(length - 1)
-
-        // Timing Calculation
-        var delay = baseDelay.toDouble()
-
-        // Punctuation
-        if (word.contains(",")) delay += 200
-        if (word.contains(".") || word.contains("?") || word.contains("!")) delay += 400
-        
-        // Complexity Scaling
-        if (length > 8) delay *= 1.1
-
-        return PulseWord(word, pivotIndex, delay.toLong())
+    }
+
+    /** Sleeps for [nanos] unless the session changes first. Returns true if it did. */
+    private suspend fun awaitChange(session: PulseSession, nanos: Long): Boolean {
+        if (session.changes.tryReceive().isSuccess) return true
+        if (nanos < NANOS_PER_MILLI) return false
+        return withTimeoutOrNull(nanos / NANOS_PER_MILLI) { session.changes.receive() } != null
+    }
+
+    /**
+     * Waits for the frame closest to [deadline], sleeping through most of the wait rather than
+     * waking every frame. Returns that frame's time and the updated frame interval estimate, or
+     * null as soon as [session] changes.
+     */
+    private suspend fun awaitFrameNear(
+        deadline: Long,
+        lastFrameTime: Long,
+        lastFrameInterval: Long,
+        session: PulseSession
+    ): Pair<Long, Long>? {
+        var frameTime = lastFrameTime
+        var frameInterval = lastFrameInterval
+
+        val sleepNanos = deadline - System.nanoTime() - 2 * frameInterval
+        if (sleepNanos > 0) {
+            if (awaitChange(session, sleepNanos)) return null
+            frameTime = frameClock.awaitFrame()
+        }
+        while (frameTime + frameInterval / 2 < deadline) {
+            if (session.changes.tryReceive().isSuccess) return null
+            val next = frameClock.awaitFrame()
+            // Back to back frames, a good sample of the refresh rate
+            val sample = next - frameTime
+            if (sample in MIN_FRAME_INTERVAL_NANOS..MAX_FRAME_INTERVAL_NANOS) {
+                frameInterval = (frameInterval * 7 + sample) / 8
+            }
+            frameTime = next
+        }
+        return frameTime to frameInterval
+    }
+
+    private fun wordsPerMinute(words: Int, nanos: Long): Int {
+        if (words <= 0 || nanos <= 0) return 0
+        return (words * 60_000_000_000.0 / nanos).roundToInt()
+    }
+
+    companion object {
+        private const val NANOS_PER_MILLI = 1_000_000L
+
+        // 60 Hz until frames have been observed
+        private const val DEFAULT_FRAME_INTERVAL_NANOS = 16_666_667L
+        private const val MIN_FRAME_INTERVAL_NANOS = 4_000_000L // 250 Hz
+        private const val MAX_FRAME_INTERVAL_NANOS = 50_000_000L // 20 Hz, anything slower is a dropped frame
+
+        /** Lateness that is made up by shortening the following words rather than skipped. */
+        const val MAX_CATCH_UP_NANOS = 250_000_000L
     }
 }
 
 sealed class PulseEvent {
-    data class Word(val pulseWord: PulseWord, val index: Int) : PulseEvent()
+    /**
+     * [actualWpm] is the rate words have been shown at so far, [scheduledWpm] the rate the same
+     * words would have been shown at with perfect timing (punctuation pauses included). Both are 0
+     * for the first word.
+     */
+    data class Word(
+        val pulseWord: PulseWord,
+        val index: Int,
+        val actualWpm: Int = 0,
+        val scheduledWpm: Int = 0
+    ) : PulseEvent()
     data object Finished : PulseEvent()
 }
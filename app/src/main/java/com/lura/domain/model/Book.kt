@@ -22,6 +22,8 @@ data class Book(
     val currentPage: Int = 0,
     val totalPages: Int = 0,
     val currentChapter: Int = 0,
+    val currentElement: Int = 0, // With currentChapter and currentCharOffset, the layout independent reading position
+    val currentCharOffset: Int = 0,
     val progressPercentage: Float = 0f,
     val lastReadTimestamp: Long = 0,
     val lastReadDate: Long = 0,
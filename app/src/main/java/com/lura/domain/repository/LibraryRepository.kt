@@ -1,5 +1,6 @@
 package com.lura.domain.repository
 
+import com.lura.domain.engine.TextLocator
 import com.lura.domain.model.Book
 import com.lura.data.db.entity.Highlight
 import kotlinx.coroutines.flow.Flow
@@ -9,7 +10,7 @@ interface LibraryRepository {
     suspend fun getBookById(id: String): Book?
     suspend fun importBook(uri: String): Book
     suspend fun importBookFromAssets(assetFileName: String): Book
-    suspend fun updateProgress(bookId: String, progress: Float)
+    suspend fun updateProgress(bookId: String, progress: Float, locator: TextLocator)
     suspend fun deleteBook(bookId: String)
     suspend fun getBookImage(bookId: String, imagePath: String): ByteArray?
     
@@ -0,0 +1,89 @@
+package com.lura.ui.reader
+
+import androidx.compose.ui.text.AnnotatedString
+import androidx.compose.ui.text.TextMeasurer
+import androidx.compose.ui.text.TextStyle
+import androidx.compose.ui.unit.Constraints
+import com.lura.domain.engine.MeasuredParagraph
+import com.lura.domain.engine.ParagraphMeasurer
+import com.lura.domain.engine.ReaderElement
+import com.lura.domain.engine.ReaderTextStyle
+import com.lura.domain.engine.TableCell
+import com.lura.ui.reader.utils.toAnnotatedString
+import java.util.concurrent.ConcurrentHashMap
+
+/**
+ * [ParagraphMeasurer] backed by Compose's [TextMeasurer], measuring text and table cells exactly as
+ * the reader draws them.
+ *
+ * Line metrics are kept for every paragraph and table cell measured so far. They only depend on the width and the
+ * text style, so one instance is kept for as long as those stay the same: when just the page height
+ * changes (e.g. the system bars show or hide) pages are re-split without shaping any text again.
+ * Only the metric arrays are kept, not the styled text, which is cheap to rebuild from the chapter
+ * and would otherwise stay in memory for every paragraph laid out.
+ */
+class ComposeParagraphMeasurer(
+    private val textMeasurer: TextMeasurer,
+    private val maxWidthPx: Int,
+    private val styleFor: (ReaderTextStyle) -> TextStyle,
+    private val tableCellStyleFor: (isHeader: Boolean) -> TextStyle
+) : ParagraphMeasurer {
+
+    private data class TableCellKey(
+        val chapterIndex: Int,
+        val elementIndex: Int,
+        val rowIndex: Int,
+        val cellIndex: Int,
+        val widthPx: Int
+    )
+
+    private val measured = ConcurrentHashMap<Long, MeasuredParagraph>()
+    private val measuredCells = ConcurrentHashMap<TableCellKey, Float>()
+
+    override fun styledText(chapterIndex: Int, elementIndex: Int, element: ReaderElement.Text): AnnotatedString {
+        return element.toAnnotatedString()
+    }
+
+    override fun measure(chapterIndex: Int, elementIndex: Int, element: ReaderElement.Text): MeasuredParagraph {
+        return measured.getOrPut(paragraphKey(chapterIndex, elementIndex)) {
+            val text = element.toAnnotatedString()
+            val layout = textMeasurer.measure(
+                text = text,
+                style = styleFor(element.style),
+                constraints = Constraints(maxWidth = maxWidthPx)
+            )
+            MeasuredParagraph(
+                lineStarts = IntArray(layout.lineCount) { layout.getLineStart(it) },
+                lineEnds = IntArray(layout.lineCount) { layout.getLineEnd(it) },
+                lineTops = FloatArray(layout.lineCount) { layout.getLineTop(it) },
+                lineBottoms = FloatArray(layout.lineCount) { layout.getLineBottom(it) }
+            )
+        }
+    }
+
+    override fun measureTableCell(
+        chapterIndex: Int,
+        elementIndex: Int,
+        rowIndex: Int,
+        cellIndex: Int,
+        cell: TableCell,
+        widthPx: Int
+    ): Float {
+        return measuredCells.getOrPut(TableCellKey(chapterIndex, elementIndex, rowIndex, cellIndex, widthPx)) {
+            // Cells only draw their text, stacked
+            val style = tableCellStyleFor(cell.isHeader)
+            cell.elements.sumOf { element ->
+                if (element is ReaderElement.Text) {
+                    textMeasurer.measure(
+                        text = AnnotatedString(element.content),
+                        style = style,
+                        constraints = Constraints(maxWidth = widthPx)
+                    ).size.height
+                } else 0
+            }.toFloat()
+        }
+    }
+
+    private fun paragraphKey(chapterIndex: Int, elementIndex: Int): Long =
+        (chapterIndex.toLong() shl 32) or (elementIndex.toLong() and 0xFFFFFFFFL)
+}
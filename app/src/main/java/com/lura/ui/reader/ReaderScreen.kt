@@ -83,35 +83,32 @@ import androidx.compose.ui.graphics.vector.ImageVector
 import androidx.compose.ui.platform.LocalView
 import android.view.WindowManager
 import kotlinx.coroutines.async
-import kotlinx.coroutines.awaitAll
+import kotlinx.coroutines.sync.withPermit
 import kotlinx.coroutines.coroutineScope
+import com.lura.domain.engine.indices
+import com.lura.domain.engine.InternalElement
+import com.lura.domain.engine.PageContent
+import com.lura.domain.engine.pageBreaksOf
+import com.lura.domain.engine.pageIndexOf
+import com.lura.domain.engine.pageLocatorOf
 
-// Internal representation for paginated content to preserve styles and track source position
-sealed class InternalElement {
-    data class Text(
-        val content: androidx.compose.ui.text.AnnotatedString, 
-        val style: com.lura.domain.engine.ReaderTextStyle,
-        val originalElementIndex: Int,
-        val startLine: Int = 0
-    ) : InternalElement()
-    
-    data class Image(
-        val element: com.lura.domain.engine.ReaderElement.Image,
-        val originalElementIndex: Int
-    ) : InternalElement()
-    
-    data class Table(
-        val element: com.lura.domain.engine.ReaderElement.Table,
-        val originalElementIndex: Int
-    ) : InternalElement()
-}
+private const val READER_ELEMENT_SPACING_DP = 16
 
-data class PageContent(
-    val elements: List<Pair<Int, InternalElement>>,
-    val isTitle: Boolean = false
-)
+// Pages on each side of the current one whose images are decoded ahead of time
+private const val PREFETCH_PAGE_COUNT = 2
 
-private const val READER_ELEMENT_SPACING_DP = 16
+// Bump when a change to the pagination below moves page breaks, so stored ones are not reused
+private const val PAGINATION_LAYOUT_VERSION = 3
+
+// Chapters laid out at the same time while filling in the book around the start chapter
+private val PAGINATION_PARALLELISM = Runtime.getRuntime().availableProcessors().coerceAtLeast(2)
+
+fun getTableCellTextStyle(isHeader: Boolean, fontFamily: androidx.compose.ui.text.font.FontFamily): TextStyle {
+    return (if (isHeader) ReaderTypography.titleSmall else ReaderTypography.bodySmall).copy(
+        fontFamily = fontFamily,
+        fontWeight = if (isHeader) androidx.compose.ui.text.font.FontWeight.Bold else null
+    )
+}
 
 fun getReaderTextStyle(
     style: com.lura.domain.engine.ReaderTextStyle,
@@ -150,7 +147,6 @@ fun ReaderScreen(
     viewModel: ReaderViewModel = hiltViewModel()
 ) {
     val uiState by viewModel.uiState.collectAsState()
-    val listState = rememberLazyListState()
 
     // Keep screen on while reading
     val screenView = LocalView.current
@@ -162,51 +158,15 @@ fun ReaderScreen(
         }
     }
 
-    // Handle Navigation Events (Hardware Keys)
-    LaunchedEffect(viewModel) {
-        viewModel.navigationEvents.collect { event ->
-            when (event) {
-                ReaderNavigationEvent.ScrollDown -> {
-                    listState.animateScrollBy(1000f)
-                }
-                ReaderNavigationEvent.ScrollUp -> {
-                    listState.animateScrollBy(-1000f)
-                }
-                is ReaderNavigationEvent.ScrollToChapter -> {
-                    val state = uiState as? ReaderUiState.Ready
-                    if (state != null) {
-                         val content = state.bookContent
-                         var index = 1 // Title page
-                         for (i in 0 until event.chapterIndex) {
-                             val ch = content.chapters[i]
-                             if (ch.title.isNotBlank() && ch.title != content.title) index++
-                             index += ch.elements.size
-                         }
-                         
-                         // Determine target
-                         val targetCh = content.chapters[event.chapterIndex]
-                         val hasTitle = targetCh.title.isNotBlank() && targetCh.title != content.title
-                         
-                         // If elementIndex is 0 (Chapter Start), scroll to Title if exists, else first element
-                         val finalIndex = if (hasTitle) {
-                             if (event.elementIndex == 0) index else index + 1 + event.elementIndex
-                         } else {
-                             index + event.elementIndex
-                         }
-                         
-                         listState.scrollToItem(finalIndex)
-                    }
-                }
-                is ReaderNavigationEvent.GoToPage -> {
-                    // Handled by pagerState in the UI directly
-                }
-                ReaderNavigationEvent.NextPage -> {
-                    // Handled by pagerState in the UI directly
-                }
-                ReaderNavigationEvent.PreviousPage -> {
-                    // Handled by pagerState in the UI directly
-                }
-            }
+    // Make the reading position durable as soon as the reader leaves the foreground
+    val lifecycleOwner = androidx.lifecycle.compose.LocalLifecycleOwner.current
+    DisposableEffect(lifecycleOwner) {
+        val observer = androidx.lifecycle.LifecycleEventObserver { _, event ->
+            if (event == androidx.lifecycle.Lifecycle.Event.ON_PAUSE) viewModel.flushProgress()
+        }
+        lifecycleOwner.lifecycle.addObserver(observer)
+        onDispose {
+            lifecycleOwner.lifecycle.removeObserver(observer)
         }
     }
 
@@ -246,14 +206,60 @@ fun ReaderScreen(
             var pages by remember { mutableStateOf<List<PageContent>>(emptyList()) }
             var isPaginating by remember { mutableStateOf(false) }
 
+            // Chapters are laid out outward from the one being read, [pages] covers this range
+            var laidOutChapters by remember { mutableStateOf(IntRange.EMPTY) }
+            var isLayoutComplete by remember { mutableStateOf(false) }
+            var savedPositionRestored by remember { mutableStateOf(false) }
+
             // Add title page as first item
             val totalPages = 1 + pages.size
-            
+
+            // Reads the state directly so a scroll right after publishing pages sees the new count
             val pagerState = rememberPagerState(
                 initialPage = 0,
-                pageCount = { totalPages }
+                pageCount = { 1 + pages.size }
             )
 
+            // Until every chapter is laid out, the pages outside the laid out range are estimated
+            // from the average chapter length so far
+            val chapterCount = state.bookContent.chapters.size
+            val averageChapterPages = if (laidOutChapters.isEmpty()) 0f else pages.size.toFloat() / (laidOutChapters.last - laidOutChapters.first + 1)
+            val pagesBeforeLaidOut = if (isLayoutComplete || laidOutChapters.isEmpty()) 0 else (laidOutChapters.first * averageChapterPages).toInt()
+            val estimatedTotalPages = if (isLayoutComplete || laidOutChapters.isEmpty()) totalPages else 1 + (chapterCount * averageChapterPages).toInt().coerceAtLeast(pages.size)
+            val displayedPage = if (pagerState.currentPage > 0) pagerState.currentPage + pagesBeforeLaidOut else 0
+            val pageNumberPrefix = if (isLayoutComplete) "" else "~"
+
+            // Handle Navigation Events (Hardware Keys, TOC, Search, Pulse sync)
+            LaunchedEffect(viewModel, pagerState) {
+                viewModel.navigationEvents.collect { event ->
+                    when (event) {
+                        ReaderNavigationEvent.ScrollDown, ReaderNavigationEvent.NextPage -> {
+                            if (pagerState.currentPage < pagerState.pageCount - 1) {
+                                pagerState.animateScrollToPage(pagerState.currentPage + 1)
+                            }
+                        }
+                        ReaderNavigationEvent.ScrollUp, ReaderNavigationEvent.PreviousPage -> {
+                            if (pagerState.currentPage > 0) {
+                                pagerState.animateScrollToPage(pagerState.currentPage - 1)
+                            }
+                        }
+                        is ReaderNavigationEvent.ScrollToChapter -> {
+                            // Pages only hold what was laid out, no chapter needs to be loaded here
+                            val pageIdx = pageIndexOf(
+                                pages,
+                                com.lura.domain.engine.TextLocator(event.chapterIndex, event.elementIndex, event.charOffset)
+                            )
+                            if (pageIdx != -1 && pagerState.currentPage != pageIdx + 1) {
+                                pagerState.scrollToPage(pageIdx + 1)
+                            }
+                        }
+                        is ReaderNavigationEvent.GoToPage -> {
+                            pagerState.scrollToPage(event.pageIndex.coerceIn(0, pagerState.pageCount - 1))
+                        }
+                    }
+                }
+            }
+
             // Progress Display Mode: 0 = Page Count, 1 = Percentage, 2 = Chapter
             var progressDisplayMode by remember { mutableIntStateOf(0) }
 
@@ -280,21 +286,18 @@ fun ReaderScreen(
                 }
             }
 
-            // Restore initial progress once pagination is complete
-            LaunchedEffect(isPaginating, state.initialProgress) {
-                if (!isPaginating && state.initialProgress > 0f) {
-                    val targetPage = (state.initialProgress * totalPages).toInt().coerceIn(0, totalPages - 1)
-                    if (pagerState.currentPage != targetPage) {
-                        pagerState.scrollToPage(targetPage)
-                    }
-                }
+            // Keep the chapter cache centred on the chapter being read
+            LaunchedEffect(pagerState.currentPage, pages) {
+                val chapterIdx = pages.getOrNull(pagerState.currentPage - 1)?.elements?.firstOrNull()?.first
+                if (chapterIdx != null) viewModel.onChapterVisible(chapterIdx)
             }
 
             // Save progress when page changes
-            LaunchedEffect(pagerState.currentPage, totalPages) {
+            LaunchedEffect(pagerState.currentPage, totalPages, isPaginating) {
                 if (!isPaginating && totalPages > 1) {
-                    val progress = pagerState.currentPage.toFloat() / (totalPages - 1)
-                    viewModel.saveProgress(progress)
+                    val progress = (displayedPage.toFloat() / (estimatedTotalPages - 1)).coerceIn(0f, 1f)
+                    val locator = pages.getOrNull(pagerState.currentPage - 1)?.let { pageLocatorOf(it) }
+                    viewModel.saveProgress(progress, locator ?: com.lura.domain.engine.TextLocator(0, 0, 0))
                 }
             }
 
@@ -319,13 +322,13 @@ fun ReaderScreen(
                     ) {
                         val progressText = when (progressDisplayMode) {
                             1 -> {
-                                val percent = if (totalPages > 0) ((pagerState.currentPage + 1).toFloat() / totalPages * 100).toInt() else 0
-                                "$percent%"
+                                val percent = if (estimatedTotalPages > 0) ((displayedPage + 1).toFloat() / estimatedTotalPages * 100).toInt().coerceAtMost(100) else 0
+                                "$pageNumberPrefix$percent%"
                             }
                             2 -> {
-                                if (chapterProgress.value.isNotEmpty()) "Ch: ${chapterProgress.value.replace("Page ", "")}" else "Page ${pagerState.currentPage + 1} of $totalPages"
+                                if (chapterProgress.value.isNotEmpty()) "Ch: ${chapterProgress.value.replace("Page ", "")}" else "Page $pageNumberPrefix${displayedPage + 1} of $pageNumberPrefix$estimatedTotalPages"
                             }
-                            else -> "Page ${pagerState.currentPage + 1} of $totalPages"
+                            else -> "Page $pageNumberPrefix${displayedPage + 1} of $pageNumberPrefix$estimatedTotalPages"
                         }
                         
                         Text(
@@ -377,192 +380,147 @@ fun ReaderScreen(
                     val textMeasurer = androidx.compose.ui.text.rememberTextMeasurer()
                     val availableContentWidthPx = availableWidth - horizontalPaddingPx
                     val availableContentHeightPx = contentHeight.toFloat()
+
+                    // Outlives height-only changes, so those re-split pages from cached line metrics
+                    val paragraphMeasurer = remember(state.bookContent, state.fontSize, state.lineHeightMultiplier, availableContentWidthPx, currentFontFamily, density) {
+                        ComposeParagraphMeasurer(
+                            textMeasurer,
+                            availableContentWidthPx,
+                            styleFor = { style -> getReaderTextStyle(style, state.fontSize, currentFontFamily, state.lineHeightMultiplier) },
+                            tableCellStyleFor = { isHeader -> getTableCellTextStyle(isHeader, currentFontFamily) }
+                        )
+                    }
+                    
+                    val captionStyle = MaterialTheme.typography.labelSmall.copy(fontFamily = currentFontFamily)
+                    val pageLayout = remember(availableContentHeightPx, availableContentWidthPx, captionStyle, density) {
+                        com.lura.domain.engine.PageLayout(
+                            contentWidthPx = availableContentWidthPx,
+                            contentHeightPx = availableContentHeightPx,
+                            elementSpacingPx = with(density) { READER_ELEMENT_SPACING_DP.dp.toPx() },
+                            // Matches the padding, borders and captions around tables and images on the page
+                            tablePaddingPx = with(density) { 24.dp.toPx() },
+                            tableCellPaddingPx = with(density) { 8.dp.toPx() },
+                            tableDividerPx = with(density) { DividerDefaults.Thickness.toPx() },
+                            imagePaddingPx = with(density) { 16.dp.toPx() },
+                            imageCaptionHeightPx = textMeasurer.measure(" ", captionStyle).size.height + with(density) { 8.dp.toPx() }
+                        )
+                    }
                     
-                    LaunchedEffect(state.bookContent, state.fontSize, availableContentHeightPx, availableContentWidthPx, currentFontFamily) {
+                    LaunchedEffect(state.bookContent, state.fontSize, state.lineHeightMultiplier, availableContentHeightPx, availableContentWidthPx, currentFontFamily, density) {
                         if (availableContentHeightPx <= 0 || availableContentWidthPx <= 0) return@LaunchedEffect
                         
-                        // ANCHOR CAPTURE: Save current position before re-paginating
-                        val currentPagesSnapshot = pages
-                        val currentPagerPage = pagerState.currentPage
-                        var anchor: Triple<Int, Int, Int>? = null
-                        
-                        if (currentPagesSnapshot.isNotEmpty() && currentPagerPage > 0) {
-                            val pageIdx = currentPagerPage - 1
-                            if (pageIdx < currentPagesSnapshot.size) {
-                                val page = currentPagesSnapshot[pageIdx]
-                                page.elements.firstOrNull()?.let { (chIdx, el) ->
-                                    anchor = when (el) {
-                                        is InternalElement.Text -> Triple(chIdx, el.originalElementIndex, el.startLine)
-                                        is InternalElement.Image -> Triple(chIdx, el.originalElementIndex, 0)
-                                        is InternalElement.Table -> Triple(chIdx, el.originalElementIndex, 0)
-                                    }
-                                }
-                            }
+                        // ANCHOR CAPTURE: Save current position before re-paginating. A locator
+                        // survives any layout change, unlike a page or line number.
+                        val anchor = if (pagerState.currentPage > 0) {
+                            pages.getOrNull(pagerState.currentPage - 1)?.let { pageLocatorOf(it) }
+                        } else null
+
+                        val chapters = state.bookContent.chapters
+                        if (chapters.size == 0) {
+                            pages = emptyList()
+                            laidOutChapters = IntRange.EMPTY
+                            isLayoutComplete = true
+                            return@LaunchedEffect
                         }
 
+                        // Page breaks are reused from the last time the book was laid out with
+                        // exactly these inputs, the key covers everything the measuring below reads
+                        val layoutKey = listOf(
+                            PAGINATION_LAYOUT_VERSION, state.fontSize, state.fontFamily, state.lineHeightMultiplier,
+                            state.horizontalPadding, state.verticalPadding, availableContentWidthPx, availableContentHeightPx,
+                            density.density, density.fontScale
+                        ).joinToString("|")
+                        val cachedBreaks = viewModel.loadPageBreaks(layoutKey)?.takeIf { it.size == chapters.size }
+                        val chapterBreaks = arrayOfNulls<List<List<com.lura.domain.engine.PageSlice>>>(chapters.size)
+                        var measuredAny = false
+
+                        val paginator = com.lura.domain.engine.Paginator(paragraphMeasurer, pageLayout)
+
+                        // 1. The chapter being read: the anchor when re-paginating, else the saved position
+                        val target = anchor ?: state.initialLocator?.takeIf { !savedPositionRestored }
+                        val startChapter = (target?.chapterIndex ?: 0).coerceIn(0, chapters.size - 1)
                         isPaginating = true
-                        kotlinx.coroutines.withContext(kotlinx.coroutines.Dispatchers.Default) {
-                            val resultNodes = kotlinx.coroutines.coroutineScope {
-                                state.bookContent.chapters.mapIndexed { chapterIndex, chapter ->
-                                    async {
-                                        val chapterPages = mutableListOf<PageContent>()
-                                        var currentPageElements = mutableListOf<Pair<Int, InternalElement>>()
-                                        var currentHeightPx = 0f
-
-                                        fun flushPage() {
-                                            if (currentPageElements.isNotEmpty()) {
-                                                chapterPages.add(PageContent(ArrayList(currentPageElements)))
-                                                currentPageElements.clear()
-                                                currentHeightPx = 0f
-                                            }
-                                        }
-
-                                        chapter.elements.forEachIndexed { elementIndex, element ->
-                                            when (element) {
-                                                is com.lura.domain.engine.ReaderElement.Text -> {
-                                                    val style = getReaderTextStyle(element.style, state.fontSize, currentFontFamily, state.lineHeightMultiplier)
-                                                    val spacingPx = with(density) { READER_ELEMENT_SPACING_DP.dp.toPx() }
-
-                                                    val fullAnnotatedString = if (element.style == com.lura.domain.engine.ReaderTextStyle.Body) 
-                                                        com.lura.ui.reader.utils.htmlToAnnotatedString(element.content)
-                                                    else 
-                                                        androidx.compose.ui.text.AnnotatedString(element.content)
-
-                                                    val measureResult: androidx.compose.ui.text.TextLayoutResult = textMeasurer.measure(
-                                                        text = fullAnnotatedString,
-                                                        style = style,
-                                                        constraints = androidx.compose.ui.unit.Constraints(maxWidth = availableContentWidthPx)
-                                                    )
-
-                                                    var currentLine = 0
-                                                    while (currentLine < measureResult.lineCount) {
-                                                        val spaceLeft = availableContentHeightPx - currentHeightPx - spacingPx
-                                                        
-                                                        if (spaceLeft < 10f && currentPageElements.isNotEmpty()) {
-                                                            flushPage()
-                                                            continue
-                                                        }
-
-                                                        val baselineTop = if (currentLine > 0) measureResult.getLineTop(currentLine) else 0f
-                                                        val targetBottom = baselineTop + spaceLeft
-                                                        val lastPossibleLine = measureResult.getLineForVerticalPosition(targetBottom).coerceAtMost(measureResult.lineCount - 1)
-                                                        
-                                                        var lineToTake = if (measureResult.getLineBottom(lastPossibleLine) - baselineTop <= spaceLeft) {
-                                                            lastPossibleLine
-                                                        } else {
-                                                            (lastPossibleLine - 1).coerceAtLeast(currentLine)
-                                                        }
+                        isLayoutComplete = false
 
-                                                        if (lineToTake < currentLine && currentPageElements.isEmpty()) {
-                                                            lineToTake = currentLine
-                                                        }
+                        suspend fun paginateChapter(chapterIndex: Int): List<PageContent> {
+                            val chapter = chapters.load(chapterIndex)
+                            cachedBreaks?.get(chapterIndex)?.let { breaks ->
+                                paginator.restoreChapter(chapterIndex, chapter, breaks)?.let { return it }
+                            }
+                            measuredAny = true
+                            return paginator.layoutChapter(chapterIndex, chapter)
+                        }
 
-                                                        if (lineToTake >= currentLine) {
-                                                            val tookText = fullAnnotatedString.subSequence(
-                                                                measureResult.getLineStart(currentLine),
-                                                                measureResult.getLineEnd(lineToTake)
-                                                            )
-                                                            
-                                                            if (tookText.isNotEmpty()) {
-                                                                currentPageElements.add(chapterIndex to InternalElement.Text(tookText, element.style, elementIndex, currentLine))
-                                                                currentHeightPx += (measureResult.getLineBottom(lineToTake) - baselineTop) + spacingPx
-                                                            }
-                                                            
-                                                            currentLine = lineToTake + 1
-                                                            if (currentLine < measureResult.lineCount) {
-                                                                flushPage()
-                                                            }
-                                                        } else {
-                                                            flushPage()
-                                                        }
-                                                    }
-                                                }
-                                                is com.lura.domain.engine.ReaderElement.Image -> {
-                                                    if (element.isFullPage) {
-                                                        if (currentPageElements.isNotEmpty()) flushPage()
-                                                        currentPageElements.add(chapterIndex to InternalElement.Image(element, elementIndex))
-                                                        flushPage()
-                                                    } else {
-                                                        val estimatedImageHeightPx = availableContentHeightPx * 0.4f
-                                                        if (currentHeightPx + estimatedImageHeightPx > availableContentHeightPx && currentPageElements.isNotEmpty()) {
-                                                            flushPage()
-                                                        }
-                                                        currentPageElements.add(chapterIndex to InternalElement.Image(element, elementIndex))
-                                                        currentHeightPx += estimatedImageHeightPx + with(density) { 16.dp.toPx() }
-                                                    }
-                                                }
-                                                is com.lura.domain.engine.ReaderElement.Table -> {
-                                                    var remainingRows = element.rows
-                                                    val rowHeightPx = with(density) { (state.fontSize * 2).sp.toPx() }
-
-                                                    while (remainingRows.isNotEmpty()) {
-                                                        val spaceLeft = availableContentHeightPx - currentHeightPx
-                                                        val rowsToTake = mutableListOf<com.lura.domain.engine.TableRow>()
-                                                        var tableHeight = 0f
-                                                        
-                                                        for (row in remainingRows) {
-                                                            val estRowHeight = rowHeightPx
-                                                            if (currentHeightPx + tableHeight + estRowHeight <= availableContentHeightPx) {
-                                                                rowsToTake.add(row)
-                                                                tableHeight += estRowHeight
-                                                            } else {
-                                                                break
-                                                            }
-                                                        }
-                                                        
-                                                        if (rowsToTake.isNotEmpty()) {
-                                                            currentPageElements.add(chapterIndex to InternalElement.Table(com.lura.domain.engine.ReaderElement.Table(rowsToTake), elementIndex))
-                                                            currentHeightPx += tableHeight + with(density) { 16.dp.toPx() }
-                                                            remainingRows = remainingRows.drop(rowsToTake.size)
-                                                            if (remainingRows.isNotEmpty()) flushPage()
-                                                        } else {
-                                                            if (currentPageElements.isNotEmpty()) flushPage()
-                                                            else {
-                                                                currentPageElements.add(chapterIndex to InternalElement.Table(com.lura.domain.engine.ReaderElement.Table(listOf(remainingRows[0])), elementIndex))
-                                                                remainingRows = remainingRows.drop(1)
-                                                                flushPage()
-                                                            }
-                                                        }
-                                                    }
-                                                }
-                                            }
-                                        }
-                                        flushPage()
-                                        chapterPages
-                                    }
+                        val startPages = kotlinx.coroutines.withContext(kotlinx.coroutines.Dispatchers.Default) {
+                            paginateChapter(startChapter)
+                        }
+                        chapterBreaks[startChapter] = pageBreaksOf(startPages)
+
+                        pages = startPages
+                        laidOutChapters = startChapter..startChapter
+                        if (startPages.isNotEmpty() && target != null && target.chapterIndex == startChapter) {
+                            // ANCHOR RESTORATION: binary search over the chapter's page breaks
+                            val chapterPageBreaks = chapterBreaks[startChapter].orEmpty()
+                            pagerState.scrollToPage(1 + com.lura.domain.engine.pageContaining(chapterPageBreaks, target.elementIndex, target.charOffset))
+                        } else {
+                            pagerState.scrollToPage(0)
+                        }
+                        savedPositionRestored = true
+                        isPaginating = false
+
+                        // 2. The rest of the book, outward from the start chapter. Layouts run in
+                        // parallel but are published in order, each one adjacent to what is shown.
+                        val permits = kotlinx.coroutines.sync.Semaphore(PAGINATION_PARALLELISM)
+                        kotlinx.coroutines.coroutineScope {
+                            val pending = outwardChapterOrder(startChapter, chapters.size).map { chapterIndex ->
+                                chapterIndex to async(kotlinx.coroutines.Dispatchers.Default) {
+                                    permits.withPermit { paginateChapter(chapterIndex) }
                                 }
                             }
-                            
-                            val fullResult = resultNodes.awaitAll().flatten()
-                            
-                            // ANCHOR RESTORATION: Search for and scroll to the anchor in the new pagination
-                            if (anchor != null) {
-                                val anchorVal = anchor!!
-                                val targetPageIdx = fullResult.indexOfFirst { page ->
-                                    page.elements.any { (ch, el) ->
-                                        when (el) {
-                                            is InternalElement.Text -> ch == anchorVal.first && el.originalElementIndex == anchorVal.second && el.startLine >= anchorVal.third
-                                            is InternalElement.Image -> ch == anchorVal.first && el.originalElementIndex == anchorVal.second
-                                            is InternalElement.Table -> ch == anchorVal.first && el.originalElementIndex == anchorVal.second
-                                        }
+                            for ((chapterIndex, layout) in pending) {
+                                val chapterPages = layout.await()
+                                chapterBreaks[chapterIndex] = pageBreaksOf(chapterPages)
+                                if (chapterIndex < laidOutChapters.first) {
+                                    // Keep the reader on the same page while pages are inserted before it
+                                    val onContentPage = pagerState.currentPage > 0
+                                    pages = chapterPages + pages
+                                    laidOutChapters = chapterIndex..laidOutChapters.last
+                                    if (onContentPage && chapterPages.isNotEmpty()) {
+                                        pagerState.scrollToPage(pagerState.currentPage + chapterPages.size, pagerState.currentPageOffsetFraction)
                                     }
+                                } else {
+                                    pages = pages + chapterPages
+                                    laidOutChapters = laidOutChapters.first..chapterIndex
                                 }
-                                
-                                kotlinx.coroutines.withContext(kotlinx.coroutines.Dispatchers.Main) {
-                                    pages = fullResult
-                                    if (targetPageIdx != -1) {
-                                        pagerState.scrollToPage(targetPageIdx + 1)
+                            }
+                        }
+                        isLayoutComplete = true
+
+                        if (measuredAny) {
+                            viewModel.savePageBreaks(layoutKey, chapterBreaks.map { it.orEmpty() })
+                        }
+                    }
+
+                        // Look-ahead: decode the images of the pages around the current one before
+                        // they are swiped in. Restarting on every page change cancels stale loads.
+                        // Only images are prefetched this far out: the pager lays out the text of the
+                        // pages next to the current one (beyondViewportPageCount), pages further away
+                        // get theirs once they become a neighbour.
+                        LaunchedEffect(pagerState.currentPage, pages, availableWidth, availableHeight, availableContentWidthPx, availableContentHeightPx) {
+                            val currentPageIdx = pagerState.currentPage - 1
+                            val lookAhead = (1..PREFETCH_PAGE_COUNT).flatMap { listOf(currentPageIdx + it, currentPageIdx - it) }
+                            for (pageIdx in lookAhead) {
+                                val page = pages.getOrNull(pageIdx) ?: continue
+                                page.elements.forEach { (_, internalElement) ->
+                                    if (internalElement is InternalElement.Image) {
+                                        val element = internalElement.element
+                                        val targetWidth = if (element.isFullPage) availableWidth else availableContentWidthPx
+                                        val targetHeight = if (element.isFullPage) availableHeight else availableContentHeightPx.toInt()
+                                        viewModel.prefetchImage(element.imagePath, targetWidth, targetHeight)
                                     }
-                                    isPaginating = false
-                                }
-                            } else {
-                                kotlinx.coroutines.withContext(kotlinx.coroutines.Dispatchers.Main) {
-                                    pages = fullResult
-                                    isPaginating = false
                                 }
                             }
                         }
-                    }
 
                         // Page content rendering
                         HorizontalPager(
@@ -634,8 +592,9 @@ fun ReaderScreen(
                                                                     text = internalElement.content,
                                                                     chapterIndex = chapterIndex,
                                                                     elementIndex = internalElement.originalElementIndex,
+                                                                    textStartOffset = internalElement.startOffset,
                                                                     currentSentenceIndex = state.currentSentenceIndex,
-                                                                    allPulseWords = viewModel.allPulseWords,
+                                                                    pulseWords = viewModel.pulseWords,
                                                                     style = getReaderTextStyle(internalElement.style, state.fontSize, currentFontFamily, state.lineHeightMultiplier).copy(
                                                                         color = if(internalElement.style == com.lura.domain.engine.ReaderTextStyle.Caption) onBackgroundColor.copy(alpha=0.6f) else onBackgroundColor
                                                                     ),
@@ -656,12 +615,15 @@ fun ReaderScreen(
                                                     }
                                                     is InternalElement.Image -> {
                                                         val element = internalElement.element
-                                                        val imageBitmap = produceState<androidx.compose.ui.graphics.ImageBitmap?>(initialValue = null, element.imagePath) {
-                                                            val bytes = viewModel.loadImage(element.imagePath)
-                                                            if (bytes != null) {
-                                                                val bitmap = android.graphics.BitmapFactory.decodeByteArray(bytes, 0, bytes.size)
-                                                                value = bitmap?.asImageBitmap()
-                                                            }
+                                                        // Full-page images are drawn edge to edge, the rest inside the text area
+                                                        val targetWidth = if (element.isFullPage) availableWidth else availableContentWidthPx
+                                                        val targetHeight = if (element.isFullPage) availableHeight else availableContentHeightPx.toInt()
+                                                        val imageHeightPx = if (element.isFullPage) null else pageLayout.inlineImageHeightPx(element)
+                                                        val imageBitmap = produceState(
+                                                            initialValue = viewModel.cachedImage(element.imagePath, targetWidth, targetHeight)?.asImageBitmap(),
+                                                            element.imagePath, targetWidth, targetHeight
+                                                        ) {
+                                                            value = viewModel.loadImage(element.imagePath, targetWidth, targetHeight)?.asImageBitmap()
                                                         }
 
                                                         if (imageBitmap.value != null) {
@@ -685,9 +647,12 @@ fun ReaderScreen(
                                                                     androidx.compose.foundation.Image(
                                                                         bitmap = imageBitmap.value!!,
                                                                         contentDescription = element.caption,
-                                                                        modifier = Modifier
-                                                                            .fillMaxWidth()
-                                                                            .wrapContentHeight(),
+                                                                        // Exactly the height pagination reserved, whatever size the bitmap was decoded at
+                                                                        modifier = if (imageHeightPx != null) {
+                                                                            Modifier.fillMaxWidth().height(with(density) { imageHeightPx.toDp() })
+                                                                        } else {
+                                                                            Modifier.fillMaxWidth().wrapContentHeight()
+                                                                        },
                                                                         contentScale = ContentScale.Fit
                                                                     )
                                                                     
@@ -708,7 +673,11 @@ fun ReaderScreen(
                                                             Box(
                                                                 modifier = Modifier
                                                                     .fillMaxWidth()
-                                                                    .height(if (element.isFullPage) 300.dp else 150.dp)
+                                                                    .height(
+                                                                        if (imageHeightPx != null) with(density) { (imageHeightPx + pageLayout.inlineImageDecorationPx(element)).toDp() }
+                                                                        else if (element.isFullPage) 300.dp
+                                                                        else 150.dp
+                                                                    )
                                                                     .background(surfaceColor),
                                                                 contentAlignment = Alignment.Center
                                                             ) {
@@ -744,11 +713,7 @@ fun ReaderScreen(
                                                                                     if (cellEl is com.lura.domain.engine.ReaderElement.Text) {
                                                                                         Text(
                                                                                             text = cellEl.content,
-                                                                                            style = (if (cell.isHeader) ReaderTypography.titleSmall else ReaderTypography.bodySmall).copy(
-                                                                                                fontFamily = currentFontFamily,
-                                                                                                color = onBackgroundColor,
-                                                                                                fontWeight = if (cell.isHeader) androidx.compose.ui.text.font.FontWeight.Bold else null
-                                                                                            )
+                                                                                            style = getTableCellTextStyle(cell.isHeader, currentFontFamily).copy(color = onBackgroundColor)
                                                                                         )
                                                                                     }
                                                                                 }
@@ -826,9 +791,12 @@ fun ReaderScreen(
                                 verticalArrangement = Arrangement.spacedBy(16.dp)
                             ) {
                                 // Breadcrumb
-                                val wordInfo = viewModel.allPulseWords.getOrNull(state.currentWordIndex)
-                                val chapterTitle = wordInfo?.let { 
-                                    state.bookContent.chapters.getOrNull(it.chapterIndex)?.title 
+                                val pulseWords = viewModel.pulseWords
+                                val pulseChapter = if (state.currentWordIndex in 0 until pulseWords.size) {
+                                    pulseWords.chapterAt(state.currentWordIndex)
+                                } else null
+                                val chapterTitle = pulseChapter?.let { 
+                                    state.bookContent.chapters.titleAt(it)
                                 } ?: ""
                                 
                                 Text(
@@ -844,12 +812,10 @@ fun ReaderScreen(
                                 )
 
                                 // Progress Bar
-                                val chapterWords = viewModel.allPulseWords.filter { info -> 
-                                    wordInfo?.let { it.chapterIndex == info.chapterIndex } ?: false 
-                                }
-                                val progressInChapter = if (chapterWords.isNotEmpty()) {
-                                    val firstIdx = chapterWords.first().globalIndex
-                                    (state.currentWordIndex - firstIdx).toFloat() / chapterWords.size.toFloat()
+                                val chapterWords = pulseChapter?.let { pulseWords.chapterWordRange(it) } ?: IntRange.EMPTY
+                                val progressInChapter = if (!chapterWords.isEmpty()) {
+                                    val firstIdx = chapterWords.first
+                                    (state.currentWordIndex - firstIdx).toFloat() / (chapterWords.last - firstIdx + 1).toFloat()
                                 } else 0f
 
                                 LinearProgressIndicator(
@@ -907,14 +873,24 @@ fun ReaderScreen(
                                         )
                                     }
 
-                                    Text(
-                                        text = "${state.pulseWpm} WPM",
-                                        style = MaterialTheme.typography.labelLarge.copy(
-                                            fontWeight = FontWeight.Bold,
-                                            letterSpacing = 1.sp
-                                        ),
-                                        color = LuraGhostWhite
-                                    )
+                                    Column(horizontalAlignment = Alignment.CenterHorizontally) {
+                                        Text(
+                                            text = "${state.pulseWpm} WPM",
+                                            style = MaterialTheme.typography.labelLarge.copy(
+                                                fontWeight = FontWeight.Bold,
+                                                letterSpacing = 1.sp
+                                            ),
+                                            color = LuraGhostWhite
+                                        )
+                                        // Only worth showing when the device cannot keep up with the schedule
+                                        if (state.pulseScheduledWpm > 0 && state.pulseActualWpm < state.pulseScheduledWpm * 0.95f) {
+                                            Text(
+                                                text = "${state.pulseActualWpm} actual",
+                                                style = MaterialTheme.typography.labelSmall,
+                                                color = LuraGhostWhite.copy(alpha = 0.6f)
+                                            )
+                                        }
+                                    }
 
                                     IconButton(
                                         onClick = { viewModel.updatePulseWpm(state.pulseWpm + 50) }
@@ -1049,16 +1025,10 @@ fun ReaderScreen(
                                 // Find the first word on the current visible page
                                 val pageIdx = pagerState.currentPage - 1
                                 if (pageIdx >= 0 && pageIdx < pages.size) {
-                                    val firstElement = pages[pageIdx].elements.firstOrNull()
-                                    if (firstElement != null) {
-                                        val (chIdx, element) = firstElement
-                                        val elIdx = when (element) {
-                                            is InternalElement.Text -> element.originalElementIndex
-                                            is InternalElement.Image -> element.originalElementIndex
-                                            is InternalElement.Table -> element.originalElementIndex
-                                        }
-                                        // Start Pulse from the first word of this chapter/element
-                                        viewModel.startPulseFromPage(chIdx, elIdx)
+                                    val pageStart = pageLocatorOf(pages[pageIdx])
+                                    if (pageStart != null) {
+                                        // Start Pulse from the first word on this page
+                                        viewModel.startPulseFromPage(pageStart.chapterIndex, pageStart.elementIndex, pageStart.charOffset)
                                     } else {
                                         viewModel.togglePulse()
                                     }
@@ -1133,7 +1103,7 @@ fun ReaderScreen(
                                             modifier = Modifier.fillMaxWidth(),
                                             contentPadding = PaddingValues(bottom = 16.dp)
                                         ) {
-                                            items(state.bookContent.chapters.mapIndexed { i, c -> i to c }.filter { it.second.title.isNotBlank() }) { (index, chapter) ->
+                                            items(state.bookContent.chapters.indices.map { i -> i to state.bookContent.chapters.titleAt(i) }.filter { it.second.isNotBlank() }) { (index, chapterTitle) ->
                                                 val isSelected = index == currentChapterIdx
                                                 
                                                 Row(
@@ -1148,7 +1118,7 @@ fun ReaderScreen(
                                                     verticalAlignment = Alignment.CenterVertically
                                                 ) {
                                                     Text(
-                                                        text = chapter.title,
+                                                        text = chapterTitle,
                                                         style = MaterialTheme.typography.bodyLarge.copy(
                                                             fontWeight = if (isSelected) FontWeight.Bold else FontWeight.Normal
                                                         ),
@@ -1718,3 +1688,18 @@ private tailrec fun android.content.Context.findActivity(): android.app.Activity
     is android.content.ContextWrapper -> baseContext.findActivity()
     else -> null
 }
+
+/**
+ * Chapter indices ordered by distance from [start], alternating forward and backward, so each
+ * chapter is adjacent to the range laid out before it.
+ */
+private fun outwardChapterOrder(start: Int, count: Int): List<Int> {
+    val order = ArrayList<Int>(count - 1)
+    var distance = 1
+    while (start + distance < count || start - distance >= 0) {
+        if (start + distance < count) order.add(start + distance)
+        if (start - distance >= 0) order.add(start - distance)
+        distance++
+    }
+    return order
+}
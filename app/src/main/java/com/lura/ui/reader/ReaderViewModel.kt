@@ -7,8 +7,12 @@ import com.lura.domain.engine.BookContent
 import com.lura.domain.engine.EpubParser
 import com.lura.domain.engine.PulseEvent
 import com.lura.domain.engine.PulseWord
-import com.lura.domain.engine.PulseWordInfo
+import com.lura.domain.engine.PulseSession
+import com.lura.domain.engine.PulseWordIndex
+import com.lura.domain.engine.PulseWordTiming
 import com.lura.domain.engine.RsvpEngine
+import com.lura.domain.engine.TextLocator
+import com.lura.domain.engine.indices
 import com.lura.domain.repository.LibraryRepository
 import dagger.hilt.android.lifecycle.HiltViewModel
 import kotlinx.coroutines.Job
@@ -30,7 +34,11 @@ class ReaderViewModel @Inject constructor(
     private val repository: LibraryRepository,
     private val epubParser: EpubParser,
     private val rsvpEngine: RsvpEngine,
-    private val hardwareKeyManager: com.lura.domain.hardware.HardwareKeyManager
+    private val hardwareKeyManager: com.lura.domain.hardware.HardwareKeyManager,
+    private val imageLoader: com.lura.data.engine.BookImageLoader,
+    private val paginationStore: com.lura.data.engine.PaginationStore,
+    private val wordIndexStore: com.lura.data.engine.WordIndexStore,
+    private val progressWriter: com.lura.data.repository.ProgressWriter
 ) : ViewModel() {
 
     private val bookId: String = checkNotNull(savedStateHandle["bookId"])
@@ -39,9 +47,13 @@ class ReaderViewModel @Inject constructor(
     val uiState: StateFlow<ReaderUiState> = _uiState.asStateFlow()
 
     private var pulseJob: Job? = null
+    private var pulseSession: PulseSession? = null
     private var highlightsJob: Job? = null
-    var allPulseWords: List<PulseWordInfo> = emptyList()
+    var pulseWords: PulseWordIndex = PulseWordIndex.EMPTY
         private set
+    private var pulseTiming: PulseWordTiming? = null
+
+    private var lastSavedProgress = 0f
 
     // Navigation/Scroll Events
     private val _navigationEvents = MutableSharedFlow<ReaderNavigationEvent>(
@@ -50,35 +62,6 @@ class ReaderViewModel @Inject constructor(
     )
     val navigationEvents: SharedFlow<ReaderNavigationEvent> = _navigationEvents.asSharedFlow()
 
-    // Common abbreviations that should NOT end a sentence
-    private val commonAbbreviations = setOf(
-        "Mr", "Mrs", "Ms", "Dr", "Prof", "Sr", "Jr",
-        "vs", "etc", "e.g", "i.e", "Inc", "Ltd", "Co"
-    )
-
-    /**
-     * Determines if a word ends a sentence.
-     * Checks for sentence-ending punctuation while avoiding false positives from abbreviations.
-     */
-    private fun isSentenceEnd(word: String, currentSentence: String): Boolean {
-        // Check if word ends with sentence-ending punctuation
-        val endsWithPunctuation = word.endsWith(".") || word.endsWith("!") || 
-                                  word.endsWith("?") || word.endsWith("...")
-        
-        if (!endsWithPunctuation) return false
-        
-        // Remove punctuation to get the base word
-        val baseWord = word.trimEnd('.', '!', '?', ' ')
-        
-        // Don't end sentence if it's a common abbreviation
-        if (commonAbbreviations.contains(baseWord)) return false
-        
-        // Don't end if it looks like an abbreviation (single letter followed by period)
-        if (baseWord.length == 1 && word.endsWith(".")) return false
-        
-        return true
-    }
-
     init {
         loadBook()
         observeHardwareKeys()
@@ -100,7 +83,7 @@ class ReaderViewModel @Inject constructor(
             com.lura.domain.hardware.KeyEventType.VolumeDownLong -> {
                 // Long press toggles Pulse ON if OFF
                 if (!currentState.isPulseMode) {
-                    startPulse(currentState.currentWordIndex)
+                    startPulse { currentState.currentWordIndex }
                 }
             }
             com.lura.domain.hardware.KeyEventType.VolumeDown -> {
@@ -166,16 +149,28 @@ class ReaderViewModel @Inject constructor(
                         }
                     }
                     */
-                    allPulseWords = emptyList() // Will be populated lazily when Pulse is activated
+                    pulseWords = PulseWordIndex.EMPTY // Will be populated lazily when Pulse is activated
+                    pulseTiming = null
                     
-                    if (allPulseWords.isEmpty()) { 
+                    if (pulseWords.isEmpty()) { 
                          println("ReaderViewModel: Parsed content is empty")
                     }
 
+                lastSavedProgress = book.progress / 100f
                 _uiState.value = ReaderUiState.Ready(
                     bookContent = content,
                     currentWordIndex = 0,
-                    initialProgress = book.progress / 100f  // Convert percentage (0-100) to fraction (0.0-1.0)
+                    initialProgress = book.progress / 100f,  // Convert percentage (0-100) to fraction (0.0-1.0)
+                    initialLocator = when {
+                        book.currentChapter != 0 || book.currentElement != 0 || book.currentCharOffset != 0 ->
+                            TextLocator(book.currentChapter, book.currentElement, book.currentCharOffset)
+                        book.progress > 0f -> {
+                            // Saved before locators were recorded, start from the chapter the percentage falls into
+                            val chapter = (book.progress / 100f * content.chapters.size).toInt()
+                            TextLocator(chapter.coerceIn(0, (content.chapters.size - 1).coerceAtLeast(0)), 0, 0)
+                        }
+                        else -> null
+                    }
                 )
             } catch (e: Exception) {
                 _uiState.value = ReaderUiState.Error("Failed to parse book: ${e.message}")
@@ -192,41 +187,19 @@ class ReaderViewModel @Inject constructor(
      */
     private suspend fun initializePulseWords() {
         val currentState = _uiState.value as? ReaderUiState.Ready ?: return
-        if (allPulseWords.isNotEmpty()) return
+        if (pulseWords.isNotEmpty()) return
         
         android.util.Log.d("ReaderViewModel", "Initializing Pulse words...")
         
-        val words = mutableListOf<PulseWordInfo>()
-        var globalIdx = 0
-        var sentenceIdx = 0
-        var currentSentence = StringBuilder()
-        
-        currentState.bookContent.chapters.forEachIndexed { chapterIdx, chapter ->
-            chapter.elements.forEachIndexed { elementIdx, element ->
-                if (element is com.lura.domain.engine.ReaderElement.Text) {
-                    val elementWords = element.content.split(Regex("\\s+")).filter { it.isNotEmpty() }
-                    elementWords.forEachIndexed { wordInElementIdx, wordText ->
-                        currentSentence.append(wordText).append(" ")
-                        words.add(
-                            PulseWordInfo(
-                                text = wordText,
-                                chapterIndex = chapterIdx,
-                                elementIndex = elementIdx,
-                                offsetInElement = wordInElementIdx,
-                                globalIndex = globalIdx++,
-                                sentenceIndex = sentenceIdx
-                            )
-                        )
-                        if (isSentenceEnd(wordText, currentSentence.toString())) {
-                            sentenceIdx++
-                            currentSentence.clear()
-                        }
-                    }
-                }
+        // Tokenized at import, books imported before that are indexed once here
+        val index = withContext(Dispatchers.IO) {
+            wordIndexStore.read(bookId) ?: PulseWordIndex.build(currentState.bookContent.chapters).also {
+                wordIndexStore.write(bookId, it)
             }
         }
-        allPulseWords = words
-        android.util.Log.d("ReaderViewModel", "Pulse initialized: ${words.size} words")
+        pulseTiming = PulseWordTiming.build(index)
+        pulseWords = index
+        android.util.Log.d("ReaderViewModel", "Pulse initialized: ${index.size} words")
     }
 
     private fun observeHighlights() {
@@ -282,7 +255,9 @@ class ReaderViewModel @Inject constructor(
 
         viewModelScope.launch(Dispatchers.Default) {
             val results = mutableListOf<SearchResult>()
-            currentState.bookContent.chapters.forEachIndexed { chapterIdx, chapter ->
+            val chapters = currentState.bookContent.chapters
+            for (chapterIdx in chapters.indices) {
+                val chapter = chapters.load(chapterIdx)
                 chapter.elements.forEachIndexed { elementIdx, element ->
                     if (element is com.lura.domain.engine.ReaderElement.Text) {
                         val text = element.content
@@ -328,7 +303,10 @@ class ReaderViewModel @Inject constructor(
     }
 
     fun jumpToSearchResult(result: SearchResult) {
-        _navigationEvents.tryEmit(ReaderNavigationEvent.ScrollToChapter(result.chapterIndex, result.elementIndex))
+        _navigationEvents.tryEmit(ReaderNavigationEvent.ScrollToChapter(result.chapterIndex, result.elementIndex, result.matchIndex))
+        // A running Pulse follows to the word that was found
+        val wordIndex = pulseWords.wordIndexAt(result.chapterIndex, result.elementIndex, result.matchIndex)
+        if (wordIndex != -1) seekPulse(wordIndex)
         // Close search or handle UI side? UI should observe navigation and close.
     }
 
@@ -338,18 +316,14 @@ class ReaderViewModel @Inject constructor(
     }
 
     
-    fun startPulseFromPage(chapterIndex: Int, elementIndex: Int) {
+    fun startPulseFromPage(chapterIndex: Int, elementIndex: Int, charOffset: Int = 0) {
         val currentState = _uiState.value as? ReaderUiState.Ready ?: return
         
         if (currentState.isPulseMode) {
             stopPulse()
         } else {
-            // Find the FIRST word in this chapter/element (the top of the page)
-            val startIndex = allPulseWords.indexOfFirst { 
-                it.chapterIndex == chapterIndex && it.elementIndex == elementIndex 
-            }.coerceAtLeast(0)
-            
-            startPulse(startIndex)
+            // Find the FIRST word shown from this position on (the top of the page)
+            startPulse { words -> words.wordIndexAt(chapterIndex, elementIndex, charOffset).coerceAtLeast(0) }
         }
     }
 
@@ -360,64 +334,76 @@ class ReaderViewModel @Inject constructor(
             stopPulse()
         } else {
             // Find start index if provided, else use current saved index
-            val startIndex = if (startChapter != null && startElement != null) {
-                allPulseWords.indexOfFirst { it.chapterIndex == startChapter && it.elementIndex == startElement }
-                    .coerceAtLeast(0)
+            if (startChapter != null && startElement != null) {
+                startPulse { words -> words.wordIndexAt(startChapter, startElement).coerceAtLeast(0) }
             } else {
-                currentState.currentWordIndex
+                startPulse { currentState.currentWordIndex }
             }
-            startPulse(startIndex)
         }
     }
 
-    private fun startPulse(startIndex: Int) {
+    /**
+     * Starts Pulse, or moves it if it is running, at the word [findStartIndex] picks once the word
+     * index is loaded.
+     */
+    private fun startPulse(findStartIndex: (PulseWordIndex) -> Int) {
         val currentState = _uiState.value as? ReaderUiState.Ready ?: return
         
         viewModelScope.launch {
             // Lazy initialization
-            if (allPulseWords.isEmpty()) {
+            if (pulseWords.isEmpty()) {
                 initializePulseWords()
             }
             
-            if (allPulseWords.isEmpty()) {
+            if (pulseWords.isEmpty()) {
                 println("Cannot start pulse: No words")
                 return@launch
             }
 
-            val safeStartIndex = startIndex.coerceIn(0, allPulseWords.size - 1)
-            val textToRead = allPulseWords.drop(safeStartIndex).joinToString(" ") { it.text }
+            val words = pulseWords
+            val timing = pulseTiming ?: return@launch
+            val safeStartIndex = findStartIndex(words).coerceIn(0, words.size - 1)
+
+            // Already running: jump instead of starting over
+            val runningSession = pulseSession
+            if (pulseJob?.isActive == true && runningSession != null) {
+                runningSession.seekTo(safeStartIndex)
+                return@launch
+            }
 
             _uiState.value = currentState.copy(isPulseMode = true)
         
+        val session = PulseSession(words, timing, safeStartIndex, currentState.pulseWpm)
+        pulseSession = session
         pulseJob?.cancel()
         pulseJob = viewModelScope.launch {
             var lastScrolledChapter = -1
             var lastScrolledElement = -1
             
-            rsvpEngine.startPulse(textToRead, startWordIndex = 0, wpm = currentState.pulseWpm).collect { event ->
+            rsvpEngine.startPulse(session).collect { event ->
                 when (event) {
                     is PulseEvent.Word -> {
-                        val globalWordIndex = safeStartIndex + event.index
-                        val wordInfo = allPulseWords.getOrNull(globalWordIndex)
+                        val globalWordIndex = event.index
                         
                         _uiState.value = (_uiState.value as? ReaderUiState.Ready)?.copy(
                             activePulseWord = event.pulseWord,
                             currentWordIndex = globalWordIndex,
-                            currentSentenceIndex = wordInfo?.sentenceIndex  // Track current sentence
+                            pulseActualWpm = event.actualWpm,
+                            pulseScheduledWpm = event.scheduledWpm,
+                            currentSentenceIndex = words.sentenceAt(globalWordIndex)  // Track current sentence
                         ) ?: return@collect
                         
                         // Synchronized Scrolling: Only scroll when chapter/element changes
-                        if (wordInfo != null) {
-                            if (wordInfo.chapterIndex != lastScrolledChapter || wordInfo.elementIndex != lastScrolledElement) {
-                                lastScrolledChapter = wordInfo.chapterIndex
-                                lastScrolledElement = wordInfo.elementIndex
-                                _navigationEvents.tryEmit(
-                                    ReaderNavigationEvent.ScrollToChapter(
-                                        wordInfo.chapterIndex,
-                                        wordInfo.elementIndex
-                                    )
-                                )
-                            }
+                        val chapterIndex = words.chapterAt(globalWordIndex)
+                        val elementIndex = words.elementAt(globalWordIndex)
+                        if (chapterIndex != lastScrolledChapter || elementIndex != lastScrolledElement) {
+                            lastScrolledChapter = chapterIndex
+                            lastScrolledElement = elementIndex
+                            val locator = words.locatorOf(globalWordIndex)
+                            savePulsePosition(locator)
+                            _navigationEvents.tryEmit(
+                                ReaderNavigationEvent.ScrollToChapter(chapterIndex, elementIndex, locator.charOffset)
+                            )
                         }
                     }
                     PulseEvent.Finished -> {
@@ -429,22 +415,29 @@ class ReaderViewModel @Inject constructor(
         }
     }
 
+    /**
+     * Moves a running Pulse to [wordIndex] without restarting it.
+     */
+    fun seekPulse(wordIndex: Int) {
+        pulseSession?.takeIf { pulseJob?.isActive == true }?.seekTo(wordIndex)
+    }
+
     private fun stopPulse() {
         pulseJob?.cancel()
+        pulseSession = null
         val currentState = _uiState.value as? ReaderUiState.Ready ?: return
         
         // SYNC: Find the structural position of the last read word
-        val lastWordInfo = allPulseWords.getOrNull(currentState.currentWordIndex)
-        if (lastWordInfo != null) {
+        val lastWordIndex = currentState.currentWordIndex
+        if (lastWordIndex in 0 until pulseWords.size) {
+            val locator = pulseWords.locatorOf(lastWordIndex)
+            savePulsePosition(locator)
             _navigationEvents.tryEmit(
-                ReaderNavigationEvent.ScrollToChapter(
-                    lastWordInfo.chapterIndex, 
-                    lastWordInfo.elementIndex
-                )
+                ReaderNavigationEvent.ScrollToChapter(locator.chapterIndex, locator.elementIndex, locator.charOffset)
             )
         }
         
-        _uiState.value = currentState.copy(isPulseMode = false, activePulseWord = null)
+        _uiState.value = currentState.copy(isPulseMode = false, activePulseWord = null, pulseActualWpm = 0, pulseScheduledWpm = 0)
     }
 
     fun updateFontSize(newSize: Int) {
@@ -472,9 +465,9 @@ class ReaderViewModel @Inject constructor(
         val wpm = newWpm.coerceIn(100, 1500)
         _uiState.value = currentState.copy(pulseWpm = wpm)
         
-        // Restart pulse if it's running to apply new WPM
+        // A running Pulse picks the new speed up from the next frame
         if (currentState.isPulseMode) {
-            startPulse(currentState.currentWordIndex)
+            pulseSession?.setWpm(wpm)
         }
     }
 
@@ -504,23 +497,67 @@ class ReaderViewModel @Inject constructor(
         }
     }
 
-    suspend fun loadImage(path: String): ByteArray? {
-        return repository.getBookImage(bookId, path)
+    /**
+     * Called by the pager whenever a different chapter comes on screen, so the chapter cache
+     * keeps the neighbourhood of the reader.
+     */
+    fun onChapterVisible(chapterIndex: Int) {
+        val currentState = _uiState.value as? ReaderUiState.Ready ?: return
+        currentState.bookContent.chapters.setReadingPosition(chapterIndex)
+    }
+
+    override fun onCleared() {
+        super.onCleared()
+        progressWriter.flushAsync()
+        (_uiState.value as? ReaderUiState.Ready)?.bookContent?.chapters?.close()
     }
 
-    fun saveProgress(progress: Float) {
+    /**
+     * Decoded image sized for a [targetWidth] x [targetHeight] pixel box, from memory if it was
+     * shown recently.
+     */
+    suspend fun loadImage(path: String, targetWidth: Int, targetHeight: Int): android.graphics.Bitmap? {
+        return imageLoader.load(bookId, path, targetWidth, targetHeight)
+    }
+
+    fun cachedImage(path: String, targetWidth: Int, targetHeight: Int): android.graphics.Bitmap? {
+        return imageLoader.getCached(bookId, path, targetWidth, targetHeight)
+    }
+
+    suspend fun prefetchImage(path: String, targetWidth: Int, targetHeight: Int) {
+        imageLoader.prefetch(bookId, path, targetWidth, targetHeight)
+    }
+
+    suspend fun loadPageBreaks(layoutKey: String): com.lura.domain.engine.BookPageBreaks? {
+        return withContext(Dispatchers.IO) { paginationStore.read(bookId, layoutKey) }
+    }
+
+    fun savePageBreaks(layoutKey: String, breaks: com.lura.domain.engine.BookPageBreaks) {
         viewModelScope.launch(Dispatchers.IO) {
-            // Convert 0-1 progress to 0-100 percentage
-            val progressPercentage = progress * 100f
-            repository.updateProgress(bookId, progressPercentage)
+            paginationStore.write(bookId, layoutKey, breaks)
         }
     }
+
+    fun saveProgress(progress: Float, locator: TextLocator) {
+        lastSavedProgress = progress
+        // Convert 0-1 progress to 0-100 percentage
+        progressWriter.update(bookId, progress * 100f, locator)
+    }
+
+    fun flushProgress() {
+        progressWriter.flushAsync()
+    }
+
+    // Pulse only knows where it is in the text, the percentage stays the one last seen by the pager
+    private fun savePulsePosition(locator: TextLocator) {
+        saveProgress(lastSavedProgress, locator)
+    }
 }
 
 sealed class ReaderNavigationEvent {
     data object ScrollDown : ReaderNavigationEvent()
     data object ScrollUp : ReaderNavigationEvent()
-    data class ScrollToChapter(val chapterIndex: Int, val elementIndex: Int = 0) : ReaderNavigationEvent()
+    data class ScrollToChapter(val chapterIndex: Int, val elementIndex: Int = 0, val charOffset: Int = 0) : ReaderNavigationEvent()
     data class GoToPage(val pageIndex: Int) : ReaderNavigationEvent()
     data object NextPage : ReaderNavigationEvent()
     data object PreviousPage : ReaderNavigationEvent()
@@ -564,6 +601,7 @@ sealed class ReaderUiState {
         val blueLightFilterIntensity: Float = 0f,
         val brightnessDimmer: Float = 0f,
         val initialProgress: Float = 0f,
+        val initialLocator: TextLocator? = null, // Saved reading position, null to start at the title page
 
         val highlights: List<com.lura.data.db.entity.Highlight> = emptyList(),
         val searchQuery: String = "",
@@ -581,6 +619,9 @@ sealed class ReaderUiState {
         val lineHeightMultiplier: Float = 1.6f,
 
         val pulseWpm: Int = 300,
+        // Measured rate of the running Pulse session next to the rate it is scheduled at, 0 until known
+        val pulseActualWpm: Int = 0,
+        val pulseScheduledWpm: Int = 0,
         
         // Sentence Highlighting (The Follower)
         val currentSentenceIndex: Int? = null  // Track which sentence is being pulsed
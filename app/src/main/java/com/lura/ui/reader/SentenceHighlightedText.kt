@@ -1,67 +1,64 @@
 package com.lura.ui.reader
 
-import androidx.compose.foundation.background
-import androidx.compose.foundation.layout.Arrangement
-import androidx.compose.foundation.layout.ExperimentalLayoutApi
-import androidx.compose.foundation.layout.FlowRow
-import androidx.compose.foundation.layout.padding
-import androidx.compose.foundation.text.BasicText
+import androidx.compose.material3.Text
 import androidx.compose.runtime.Composable
+import androidx.compose.runtime.getValue
+import androidx.compose.runtime.mutableStateOf
 import androidx.compose.runtime.remember
+import androidx.compose.runtime.setValue
 import androidx.compose.ui.Modifier
-import androidx.compose.ui.graphics.Color
+import androidx.compose.ui.draw.drawWithCache
 import androidx.compose.ui.text.AnnotatedString
-import androidx.compose.ui.unit.dp
-import com.lura.domain.engine.PulseWordInfo
+import androidx.compose.ui.text.TextLayoutResult
+import androidx.compose.ui.text.style.TextAlign
+import com.lura.domain.engine.PulseWordIndex
 import com.lura.ui.theme.LuraIndigo
 
-@OptIn(ExperimentalLayoutApi::class)
+/**
+ * A paragraph, or the part of it on this page, with the sentence being pulsed highlighted.
+ *
+ * The text is laid out once, exactly like the plain paragraph the paginator measured, and the
+ * highlight is drawn behind it from the layout's path for the sentence's characters, so a
+ * sentence change only redraws the highlight.
+ */
 @Composable
 fun SentenceHighlightedText(
     text: AnnotatedString,
     chapterIndex: Int,
     elementIndex: Int,
+    textStartOffset: Int, // Where text starts in the element, pages may split paragraphs
     currentSentenceIndex: Int,
-    allPulseWords: List<PulseWordInfo>,
+    pulseWords: PulseWordIndex,
     style: androidx.compose.ui.text.TextStyle,
     modifier: Modifier = Modifier
 ) {
-    // Convert AnnotatedString to plain text and split into words
-    val plainText = text.text
-    val words = remember(plainText) { plainText.split(Regex("\\s+")).filter { it.isNotEmpty() } }
-    
-    // Find which words belong to the current sentence in this element
-    val wordsInCurrentSentence = remember(currentSentenceIndex, chapterIndex, elementIndex, allPulseWords) {
-        allPulseWords
-            .filter { it.chapterIndex == chapterIndex && 
-                     it.elementIndex == elementIndex && 
-                     it.sentenceIndex == currentSentenceIndex }
-            .map { it.offsetInElement }
-            .toSet()
+    // Words of this element in the book, looked up once per paragraph
+    val elementWords = remember(chapterIndex, elementIndex, pulseWords) {
+        pulseWords.elementWordRange(chapterIndex, elementIndex)
     }
-    
-    // Render text with highlighted words
-    FlowRow(
-        modifier = modifier,
-        horizontalArrangement = Arrangement.Start
-    ) {
-        words.forEachIndexed { index, word ->
-            val isInCurrentSentence = wordsInCurrentSentence.contains(index)
-            
-            BasicText(
-                text = "$word ",
-                style = style,
-                modifier = Modifier
-                    .background(
-                        if (isInCurrentSentence) {
-                            LuraIndigo.copy(alpha = 0.15f)  // Soft Indigo glow for current sentence
-                        } else {
-                            Color.Transparent
-                        },
-                        shape = androidx.compose.foundation.shape.RoundedCornerShape(2.dp)
-                    )
-                    .padding(horizontal = 1.dp)
-            )
+    // Chars of text that belong to the current sentence
+    val highlight = remember(currentSentenceIndex, elementWords, pulseWords, textStartOffset, text.length) {
+        pulseWords.sentenceCharRange(currentSentenceIndex, elementWords)?.let { range ->
+            val start = (range.first - textStartOffset).coerceAtLeast(0)
+            val end = (range.last + 1 - textStartOffset).coerceAtMost(text.length)
+            if (start < end) start until end else null
         }
     }
+
+    var layout by remember { mutableStateOf<TextLayoutResult?>(null) }
+    val highlightColor = LuraIndigo.copy(alpha = 0.15f) // Soft Indigo glow for current sentence
+
+    Text(
+        text = text,
+        style = style,
+        textAlign = TextAlign.Start,
+        onTextLayout = { layout = it },
+        modifier = modifier.drawWithCache {
+            // Only rebuilt when the layout or the sentence changes
+            val path = highlight?.let { range -> layout?.getPathForRange(range.first, range.last + 1) }
+            onDrawBehind {
+                if (path != null) drawPath(path, highlightColor)
+            }
+        }
+    )
 }
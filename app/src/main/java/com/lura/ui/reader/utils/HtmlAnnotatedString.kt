@@ -1,47 +0,0 @@
-package com.lura.ui.reader.utils
-
-import android.text.style.StyleSpan
-import android.text.style.UnderlineSpan
-import android.text.style.StrikethroughSpan
-import androidx.compose.ui.text.AnnotatedString
-import androidx.compose.ui.text.SpanStyle
-import androidx.compose.ui.text.buildAnnotatedString
-import androidx.compose.ui.text.font.FontStyle
-import androidx.compose.ui.text.font.FontWeight
-import androidx.compose.ui.text.style.TextDecoration
-import androidx.core.text.HtmlCompat
-
-fun htmlToAnnotatedString(html: String): AnnotatedString {
-    val spanned = HtmlCompat.fromHtml(html, HtmlCompat.FROM_HTML_MODE_COMPACT)
-    return buildAnnotatedString {
-        append(spanned.toString())
-        
-        val spans = spanned.getSpans(0, spanned.length, Any::class.java)
-        spans.forEach { span ->
-            val start = spanned.getSpanStart(span)
-            val end = spanned.getSpanEnd(span)
-            
-            when (span) {
-                is StyleSpan -> {
-                    when (span.style) {
-                        android.graphics.Typeface.BOLD -> {
-                            addStyle(SpanStyle(fontWeight = FontWeight.Bold), start, end)
-                        }
-                        android.graphics.Typeface.ITALIC -> {
-                            addStyle(SpanStyle(fontStyle = FontStyle.Italic), start, end)
-                        }
-                        android.graphics.Typeface.BOLD_ITALIC -> {
-                            addStyle(SpanStyle(fontWeight = FontWeight.Bold, fontStyle = FontStyle.Italic), start, end)
-                        }
-                    }
-                }
-                is UnderlineSpan -> {
-                    addStyle(SpanStyle(textDecoration = TextDecoration.Underline), start, end)
-                }
-                is StrikethroughSpan -> {
-                    addStyle(SpanStyle(textDecoration = TextDecoration.LineThrough), start, end)
-                }
-            }
-        }
-    }
-}
@@ -0,0 +1,35 @@
+package com.lura.ui.reader.utils
+
+import androidx.compose.ui.text.AnnotatedString
+import androidx.compose.ui.text.SpanStyle
+import androidx.compose.ui.text.font.FontStyle
+import androidx.compose.ui.text.font.FontWeight
+import androidx.compose.ui.text.style.TextDecoration
+import com.lura.domain.engine.ReaderElement
+import com.lura.domain.engine.TextSpan
+
+// One SpanStyle per combination of TextSpan flags, shared by every paragraph
+private val SPAN_STYLES = Array(16) { flags ->
+    val decorations = listOfNotNull(
+        TextDecoration.Underline.takeIf { flags and TextSpan.UNDERLINE != 0 },
+        TextDecoration.LineThrough.takeIf { flags and TextSpan.STRIKETHROUGH != 0 }
+    )
+    SpanStyle(
+        fontWeight = if (flags and TextSpan.BOLD != 0) FontWeight.Bold else null,
+        fontStyle = if (flags and TextSpan.ITALIC != 0) FontStyle.Italic else null,
+        textDecoration = if (decorations.isEmpty()) null else TextDecoration.combine(decorations)
+    )
+}
+
+/**
+ * The element's text with its inline formatting applied. The spans were resolved by the parser, so
+ * this is only a mapping from flags to styles, with no markup to parse.
+ */
+fun ReaderElement.Text.toAnnotatedString(): AnnotatedString {
+    if (spans.isEmpty()) return AnnotatedString(content)
+    val spanStyles = spans.mapNotNull { span ->
+        if (span.start >= span.end || span.end > content.length) return@mapNotNull null
+        AnnotatedString.Range(SPAN_STYLES[span.flags and 0xF], span.start, span.end)
+    }
+    return AnnotatedString(content, spanStyles)
+}
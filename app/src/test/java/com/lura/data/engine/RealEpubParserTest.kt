@@ -0,0 +1,99 @@
+package com.lura.data.engine
+
+import com.lura.domain.engine.ReaderElement
+import org.junit.Assert.assertEquals
+import org.junit.Test
+import java.io.File
+
+/**
+ * Golden output tests for chapter extraction.
+ *
+ * Each `extraction/<case>.xhtml` resource is extracted and compared with the element dump in
+ * `<case>.expected.txt`. The documents are small and hand-written, one per kind of markup the
+ * extractor treats specially. Their text and element structure is what the extractor produced
+ * before it was made single pass. The only departures came with the formatting spans, on purpose:
+ * spaces inside formatting are no longer dropped, and the spaces on both sides of a skipped inline
+ * element collapse into one.
+ *
+ * A change that alters the output on purpose also bumps [RealEpubParser.PARSER_VERSION]. Run the
+ * tests with `-Dlura.updateGoldens=<resources dir>/extraction` to rewrite the expected files, then
+ * review the diff.
+ */
+class RealEpubParserTest {
+
+    private val parser = RealEpubParser(EpubArchiveService())
+
+    @Test
+    fun mixedBlocks() = assertMatchesGolden("mixed_blocks")
+
+    @Test
+    fun malformedMarkup() = assertMatchesGolden("malformed_markup")
+
+    @Test
+    fun inlineFormatting() = assertMatchesGolden("inline_formatting")
+
+    @Test
+    fun inlineImages() = assertMatchesGolden("inline_images")
+
+    @Test
+    fun tables() = assertMatchesGolden("tables")
+
+    @Test
+    fun headings() = assertMatchesGolden("headings")
+
+    @Test
+    fun whitespace() = assertMatchesGolden("whitespace")
+
+    private fun assertMatchesGolden(case: String) {
+        val html = checkNotNull(javaClass.classLoader!!.getResourceAsStream("extraction/$case.xhtml")) {
+            "Missing test document $case"
+        }
+        val actual = html.use { dump(parser.parseChapterHtml(it, "OEBPS/text/$case.xhtml").elements) }
+
+        val updateDir = System.getProperty("lura.updateGoldens")
+        if (updateDir != null) {
+            File(updateDir, "$case.expected.txt").writeText(actual)
+            return
+        }
+
+        val expected = checkNotNull(javaClass.classLoader!!.getResourceAsStream("extraction/$case.expected.txt")) {
+            "Missing expected output for $case"
+        }
+        assertEquals(case, expected.use { it.reader().readText() }, actual)
+    }
+
+    private fun dump(elements: List<ReaderElement>): String = StringBuilder().also { dump(elements, "", it) }.toString()
+
+    private fun dump(elements: List<ReaderElement>, indent: String, out: StringBuilder) {
+        elements.forEach { element ->
+            when (element) {
+                is ReaderElement.Text -> {
+                    out.append(indent).append("Text ").append(element.style).append(' ').append(quote(element.content))
+                    if (element.spans.isNotEmpty()) {
+                        out.append(" spans=").append(element.spans.joinToString(",") { "${it.start}-${it.end}:${it.flags}" })
+                    }
+                    out.append('\n')
+                }
+                is ReaderElement.Image -> {
+                    out.append(indent).append("Image ").append(element.imagePath)
+                        .append(" caption=").append(element.caption?.let { quote(it) })
+                        .append(" fullPage=").append(element.isFullPage)
+                        .append('\n')
+                }
+                is ReaderElement.Table -> {
+                    out.append(indent).append("Table\n")
+                    element.rows.forEach { row ->
+                        out.append(indent).append("  Row\n")
+                        row.cells.forEach { cell ->
+                            out.append(indent).append(if (cell.isHeader) "    HeaderCell\n" else "    Cell\n")
+                            dump(cell.elements, "$indent      ", out)
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private fun quote(text: String): String =
+        "\"" + text.replace("\\", "\\\\").replace("\"", "\\\"").replace("\n", "\\n") + "\""
+}
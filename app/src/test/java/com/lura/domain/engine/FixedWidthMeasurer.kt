@@ -0,0 +1,49 @@
+package com.lura.domain.engine
+
+import androidx.compose.ui.text.AnnotatedString
+
+/**
+ * A [ParagraphMeasurer] for tests where every character is [charWidthPx] wide and every line
+ * [lineHeightPx] tall. Text is broken after exactly as many characters as fit the width, so line
+ * and page boundaries can be worked out by hand.
+ */
+internal class FixedWidthMeasurer(
+    private val contentWidthPx: Int,
+    private val charWidthPx: Int = 10,
+    private val lineHeightPx: Float = 20f
+) : ParagraphMeasurer {
+
+    override fun styledText(chapterIndex: Int, elementIndex: Int, element: ReaderElement.Text): AnnotatedString {
+        return AnnotatedString(element.content)
+    }
+
+    override fun measure(chapterIndex: Int, elementIndex: Int, element: ReaderElement.Text): MeasuredParagraph {
+        val charsPerLine = charsPerLine(contentWidthPx)
+        val length = element.content.length
+        val lineCount = ((length + charsPerLine - 1) / charsPerLine).coerceAtLeast(1)
+        return MeasuredParagraph(
+            lineStarts = IntArray(lineCount) { it * charsPerLine },
+            lineEnds = IntArray(lineCount) { minOf((it + 1) * charsPerLine, length) },
+            lineTops = FloatArray(lineCount) { it * lineHeightPx },
+            lineBottoms = FloatArray(lineCount) { (it + 1) * lineHeightPx }
+        )
+    }
+
+    override fun measureTableCell(
+        chapterIndex: Int,
+        elementIndex: Int,
+        rowIndex: Int,
+        cellIndex: Int,
+        cell: TableCell,
+        widthPx: Int
+    ): Float {
+        val charsPerLine = charsPerLine(widthPx)
+        return cell.elements.sumOf { element ->
+            if (element is ReaderElement.Text) {
+                ((element.content.length + charsPerLine - 1) / charsPerLine).coerceAtLeast(1)
+            } else 0
+        } * lineHeightPx
+    }
+
+    private fun charsPerLine(widthPx: Int): Int = (widthPx / charWidthPx).coerceAtLeast(1)
+}
@@ -0,0 +1,80 @@
+package com.lura.domain.engine
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertTrue
+import org.junit.Test
+import kotlin.random.Random
+
+/**
+ * Lays out a generated book of [WORDS] words with a [FixedWidthMeasurer] and checks that the
+ * pages hold every element exactly once, in order, and survive a round trip through page breaks.
+ */
+class PaginatorLargeBookTest {
+
+    @Test
+    fun largeBookIsPaginatedWhole() {
+        val layout = PageLayout(contentWidthPx = 1000, contentHeightPx = 1600f, elementSpacingPx = 12f)
+        val paginator = Paginator(FixedWidthMeasurer(layout.contentWidthPx, lineHeightPx = 40f), layout)
+
+        generateBook().forEachIndexed { chapterIndex, chapter ->
+            val pages = paginator.layoutChapter(chapterIndex, chapter)
+            assertTrue(pages.isNotEmpty())
+
+            // Every element is on the pages, in order, and its slices put it back together
+            val slices = pages.flatMap { it.elements }
+            assertTrue(slices.all { it.first == chapterIndex })
+            val rebuilt = slices.groupBy({ it.second.elementIndex() }, { it.second })
+            assertEquals(chapter.elements.indices.toList(), rebuilt.keys.toList())
+            rebuilt.forEach { (elementIndex, parts) ->
+                when (val element = chapter.elements[elementIndex]) {
+                    is ReaderElement.Text -> assertEquals(
+                        element.content,
+                        parts.joinToString("") { (it as InternalElement.Text).content.toString() }
+                    )
+                    else -> assertEquals(1, parts.size)
+                }
+            }
+
+            assertEquals(pages, paginator.restoreChapter(chapterIndex, chapter, pageBreaksOf(pages)))
+        }
+    }
+
+    private fun InternalElement.elementIndex(): Int = when (this) {
+        is InternalElement.Text -> originalElementIndex
+        is InternalElement.Image -> originalElementIndex
+        is InternalElement.Table -> originalElementIndex
+    }
+
+    private fun generateBook(): List<Chapter> {
+        val random = Random(42)
+        val chapters = mutableListOf<Chapter>()
+        var words = 0
+        while (words < WORDS) {
+            val elements = mutableListOf<ReaderElement>(ReaderElement.Text("Chapter ${chapters.size + 1}", ReaderTextStyle.Heading))
+            var chapterWords = 0
+            while (chapterWords < WORDS_PER_CHAPTER && words + chapterWords < WORDS) {
+                val paragraphWords = random.nextInt(20, 200).coerceAtMost(WORDS - words - chapterWords)
+                elements += ReaderElement.Text(sentence(random, paragraphWords))
+                chapterWords += paragraphWords
+                if (random.nextInt(40) == 0) {
+                    elements += ReaderElement.Image("OEBPS/images/${elements.size}.png", width = 800, height = 600)
+                }
+            }
+            chapters += Chapter("Chapter ${chapters.size + 1}", elements)
+            words += chapterWords
+        }
+        return chapters
+    }
+
+    private fun sentence(random: Random, words: Int): String = buildString {
+        repeat(words) { word ->
+            if (word > 0) append(' ')
+            repeat(random.nextInt(1, 10)) { append('a' + random.nextInt(26)) }
+        }
+    }
+
+    private companion object {
+        const val WORDS = 500_000
+        const val WORDS_PER_CHAPTER = 10_000
+    }
+}
@@ -0,0 +1,140 @@
+package com.lura.domain.engine
+
+import org.junit.Assert.assertEquals
+import org.junit.Assert.assertNull
+import org.junit.Assert.assertSame
+import org.junit.Assert.assertTrue
+import org.junit.Test
+
+/**
+ * Page splitting with a [FixedWidthMeasurer]: 10 characters to a line and 5 lines to a page.
+ */
+class PaginatorTest {
+
+    private val layout = PageLayout(contentWidthPx = 100, contentHeightPx = 100f, elementSpacingPx = 0f)
+    private val paginator = Paginator(FixedWidthMeasurer(layout.contentWidthPx), layout)
+
+    @Test
+    fun textSplitsAtLineBoundaries() {
+        val paragraph = paragraph(120)
+        val pages = paginator.layoutChapter(0, Chapter("One", listOf(paragraph)))
+
+        assertEquals(3, pages.size)
+        assertText(pages[0], 0, paragraph, start = 0, end = 50, startLine = 0)
+        assertText(pages[1], 0, paragraph, start = 50, end = 100, startLine = 5)
+        assertText(pages[2], 0, paragraph, start = 100, end = 120, startLine = 10)
+    }
+
+    @Test
+    fun paragraphContinuesOnNextPage() {
+        val first = paragraph(30, 'a')
+        val second = paragraph(60, 'n')
+        val pages = paginator.layoutChapter(2, Chapter("One", listOf(first, second)))
+
+        assertEquals(2, pages.size)
+        assertEquals(2, pages[0].elements.size)
+        assertText(pages[0], 0, first, start = 0, end = 30, startLine = 0)
+        // The two lines left under the first paragraph take the start of the second
+        assertText(pages[0], 1, second, start = 0, end = 20, startLine = 0)
+        assertEquals(1, pages[1].elements.size)
+        assertText(pages[1], 0, second, start = 20, end = 60, startLine = 2)
+        assertTrue(pages.all { page -> page.elements.all { it.first == 2 } })
+    }
+
+    @Test
+    fun fullPageImageGetsItsOwnPage() {
+        val cover = ReaderElement.Image("OEBPS/images/cover.jpg", isFullPage = true)
+        val chapter = Chapter("One", listOf(paragraph(20), cover, paragraph(20)))
+        val pages = paginator.layoutChapter(0, chapter)
+
+        assertEquals(3, pages.size)
+        assertEquals(listOf(0), pages[0].elements.map { (it.second as InternalElement.Text).originalElementIndex })
+        val image = pages[1].elements.single().second as InternalElement.Image
+        assertSame(cover, image.element)
+        assertEquals(1, image.originalElementIndex)
+        assertEquals(listOf(2), pages[2].elements.map { (it.second as InternalElement.Text).originalElementIndex })
+    }
+
+    @Test
+    fun inlineImageMovesToNextPageWhenItDoesNotFit() {
+        // Shrunk to the text width: 100 x 50
+        val figure = ReaderElement.Image("OEBPS/images/figure.png", width = 200, height = 100)
+        val chapter = Chapter("One", listOf(paragraph(30), figure, paragraph(20)))
+        val pages = paginator.layoutChapter(0, chapter)
+
+        assertEquals(2, pages.size)
+        assertEquals(1, pages[0].elements.size)
+        assertEquals(2, pages[1].elements.size)
+        assertEquals(1, (pages[1].elements[0].second as InternalElement.Image).originalElementIndex)
+        assertEquals(2, (pages[1].elements[1].second as InternalElement.Text).originalElementIndex)
+    }
+
+    @Test
+    fun inlineImageOfUnknownSizeTakesPartOfThePage() {
+        val figure = ReaderElement.Image("OEBPS/images/figure.png")
+        val pages = paginator.layoutChapter(0, Chapter("One", listOf(paragraph(20), figure)))
+
+        assertEquals(1, pages.size)
+        assertEquals(2, pages[0].elements.size)
+        assertEquals(1, (pages[0].elements[1].second as InternalElement.Image).originalElementIndex)
+    }
+
+    @Test
+    fun tableSplitsBetweenRows() {
+        val table = table(8)
+        val pages = paginator.layoutChapter(0, Chapter("One", listOf(paragraph(20), table)))
+
+        assertEquals(2, pages.size)
+        // Two lines of text leave room for three rows
+        val head = pages[0].elements[1].second as InternalElement.Table
+        assertEquals(1, head.originalElementIndex)
+        assertEquals(0, head.startRow)
+        assertEquals(table.rows.subList(0, 3), head.element.rows)
+
+        val tail = pages[1].elements.single().second as InternalElement.Table
+        assertEquals(3, tail.startRow)
+        assertEquals(table.rows.subList(3, 8), tail.element.rows)
+    }
+
+    @Test
+    fun restoredPagesMatchLayout() {
+        val chapter = Chapter(
+            "One",
+            listOf(
+                paragraph(45, 'a'),
+                ReaderElement.Image("OEBPS/images/figure.png", width = 100, height = 40),
+                paragraph(130, 'k'),
+                table(12),
+                ReaderElement.Image("OEBPS/images/plate.jpg", isFullPage = true),
+                paragraph(15, 'x')
+            )
+        )
+        val pages = paginator.layoutChapter(4, chapter)
+        val breaks = pageBreaksOf(pages)
+
+        assertEquals(pages, paginator.restoreChapter(4, chapter, breaks))
+    }
+
+    @Test
+    fun restoreRejectsBreaksOfAnotherChapter() {
+        val chapter = Chapter("One", listOf(paragraph(30), table(2)))
+
+        assertNull(paginator.restoreChapter(0, chapter, listOf(listOf(PageSlice(0, 0, 40)))))
+        assertNull(paginator.restoreChapter(0, chapter, listOf(listOf(PageSlice(1, 0, 3)))))
+        assertNull(paginator.restoreChapter(0, chapter, listOf(listOf(PageSlice(2)))))
+    }
+
+    private fun assertText(page: PageContent, position: Int, paragraph: ReaderElement.Text, start: Int, end: Int, startLine: Int) {
+        val text = page.elements[position].second as InternalElement.Text
+        assertEquals(paragraph.content.substring(start, end), text.content.toString())
+        assertEquals(start, text.startOffset)
+        assertEquals(startLine, text.startLine)
+    }
+
+    private fun paragraph(length: Int, first: Char = 'a'): ReaderElement.Text =
+        ReaderElement.Text(String(CharArray(length) { 'a' + (first - 'a' + it) % 26 }))
+
+    // One cell of up to ten characters a row, so every row is one line tall
+    private fun table(rows: Int): ReaderElement.Table =
+        ReaderElement.Table(List(rows) { TableRow(listOf(TableCell(listOf(ReaderElement.Text("row $it"))))) })
+}